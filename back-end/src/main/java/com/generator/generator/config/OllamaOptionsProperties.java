@@ -0,0 +1,26 @@
+package com.generator.generator.config;
+
+import com.generator.generator.dto.GenerationType;
+import com.generator.generator.dto.ollama.OllamaOptions;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-generation-type Ollama runtime options, bound from {@code ollama.options.<type>.*},
+ * e.g. {@code ollama.options.backend-crud.num-ctx=8192}.
+ */
+@Component
+@ConfigurationProperties(prefix = "ollama")
+@Data
+public class OllamaOptionsProperties {
+
+    private Map<GenerationType, OllamaOptions> options = new EnumMap<>(GenerationType.class);
+
+    public OllamaOptions forType(GenerationType type) {
+        return options.get(type);
+    }
+}
@@ -0,0 +1,9 @@
+package com.generator.generator.config;
+
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.stereotype.Component;
+
+@Component
+@EnableScheduling
+public class SchedulingConfig {
+}
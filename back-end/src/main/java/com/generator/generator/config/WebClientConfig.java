@@ -1,13 +1,43 @@
 package com.generator.generator.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
+@Slf4j
 public class WebClientConfig {
 
+    @Value("${ollama.api.url:http://localhost:11434}")
+    private String ollamaApiUrl;
+
+    @Value("${ollama.timeout:300}")
+    private Long timeoutSeconds;
+
+    @Value("${ollama.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${ollama.http.pending-acquire-timeout:60}")
+    private long pendingAcquireTimeoutSeconds;
+
+    @Value("${ollama.http.max-idle-time:120}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${ollama.http.connect-timeout:5000}")
+    private int connectTimeoutMillis;
+
+    @Value("${ollama.http.max-in-memory-size:16777216}")
+    private int maxInMemorySize;
+
     @Bean
     public WebClient.Builder webClientBuilder() {
         return WebClient.builder();
@@ -17,6 +47,40 @@ public class WebClientConfig {
     public ObjectMapper objectMapper() {
         return new ObjectMapper();
     }
-}
 
+    /**
+     * Dedicated connection pool for the Ollama model server. Connections are kept alive and
+     * reused across generations instead of being negotiated again for every request.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider ollamaConnectionProvider() {
+        return ConnectionProvider.builder("ollama")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(pendingAcquireTimeoutSeconds))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleTimeSeconds))
+                .build();
+    }
+
+    /**
+     * Long-lived WebClient shared by every Ollama call site.
+     * The read timeout applies between network reads, so it also bounds a stalled stream.
+     */
+    @Bean
+    public WebClient ollamaWebClient(ConnectionProvider ollamaConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(ollamaConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .responseTimeout(Duration.ofSeconds(timeoutSeconds));
 
+        log.info("Creating pooled Ollama WebClient for {} (max connections: {}, connect timeout: {} ms, read timeout: {} s)",
+                ollamaApiUrl, maxConnections, connectTimeoutMillis, timeoutSeconds);
+
+        return WebClient.builder()
+                .baseUrl(ollamaApiUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(maxInMemorySize))
+                .build();
+    }
+}
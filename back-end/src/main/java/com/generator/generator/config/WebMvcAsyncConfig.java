@@ -0,0 +1,63 @@
+package com.generator.generator.config;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Gives Spring MVC its own executor for async responses. It writes the events of every
+ * {@code Flux<ServerSentEvent>} stream, and a write blocks while a slow client's socket buffer is
+ * full, so it must not share Boot's small default {@code applicationTaskExecutor}.
+ * Uses one virtual thread per task when {@code spring.threads.virtual.enabled} is set on Java 21+.
+ */
+@Configuration
+@Slf4j
+public class WebMvcAsyncConfig implements WebMvcConfigurer {
+
+    @Value("${streaming.writer.pool-size:32}")
+    private int poolSize;
+
+    @Value("${streaming.writer.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolTaskExecutor pool;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(writerExecutor());
+    }
+
+    private AsyncTaskExecutor writerExecutor() {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sse-writer-");
+            executor.setVirtualThreads(true);
+            log.info("SSE writes run on virtual threads");
+            return executor;
+        }
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(poolSize);
+        pool.setMaxPoolSize(poolSize);
+        // Spring MVC queues at most one write task per open stream; a rejected one ends that stream, which the client resumes
+        pool.setQueueCapacity(queueCapacity);
+        pool.setThreadNamePrefix("sse-writer-");
+        pool.initialize();
+        log.info("SSE writes run on {} threads", poolSize);
+        return pool;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+}
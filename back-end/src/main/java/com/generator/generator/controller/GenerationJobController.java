@@ -0,0 +1,55 @@
+package com.generator.generator.controller;
+
+import com.generator.generator.dto.GenerationJobResponse;
+import com.generator.generator.service.IGenerationJobService;
+import com.generator.generator.service.stream.SseHeartbeat;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/api/jobs")
+@RequiredArgsConstructor
+@Tag(name = "Generation Jobs", description = "Asynchronous code generation job APIs")
+@SecurityRequirement(name = "bearerAuth")
+public class GenerationJobController {
+
+    private final IGenerationJobService generationJobService;
+    private final SseHeartbeat sseHeartbeat;
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get generation job", description = "Returns the status of a generation job, and the project once it has completed")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Job not found or access denied")
+    })
+    public ResponseEntity<GenerationJobResponse> getJob(
+            @PathVariable String jobId,
+            Authentication authentication) {
+        return ResponseEntity.ok(generationJobService.getJob(jobId, authentication.getName()));
+    }
+
+    @GetMapping(value = "/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Subscribe to generation job", description = "Streams job status updates as 'status' events until the job completes or fails")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Streaming started"),
+        @ApiResponse(responseCode = "400", description = "Job not found or access denied")
+    })
+    public Flux<ServerSentEvent<GenerationJobResponse>> streamJob(
+            @PathVariable String jobId,
+            @RequestParam(required = false) String token,
+            Authentication authentication) {
+        return generationJobService.watchJob(jobId, authentication.getName())
+                .map(job -> ServerSentEvent.builder(job).event("status").build())
+                .transform(sseHeartbeat::withHeartbeats);
+    }
+}
@@ -1,6 +1,7 @@
 package com.generator.generator.controller;
 
 import com.generator.generator.service.IStreamingCodeGenerationService;
+import com.generator.generator.service.stream.GenerationStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -9,9 +10,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/generate")
@@ -22,91 +25,62 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 public class GeneratorController {
 
     private final IStreamingCodeGenerationService streamingService;
+    private final GenerationStreamService generationStreamService;
 
     @GetMapping(value = "/backend/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream backend code generation", description = "Streams Spring Boot CRUD code generation in real-time from prompt")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Streaming started"),
+        @ApiResponse(responseCode = "204", description = "Resumed generation has already finished"),
         @ApiResponse(responseCode = "400", description = "Invalid prompt")
     })
-    public SseEmitter streamBackendCode(
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamBackendCode(
             @RequestParam String prompt,
             @RequestParam(required = false) String token,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
             Authentication authentication) {
         
         // Authentication is handled by Spring Security filter chain
         // If we reach here without authentication, SecurityContext should have it
         if (authentication == null || !authentication.isAuthenticated()) {
             log.warn("Unauthenticated request to stream endpoint - token might be invalid or expired");
-            SseEmitter errorEmitter = new SseEmitter(0L);
-            try {
-                errorEmitter.send(SseEmitter.event()
-                        .name("error")
-                        .data("Unauthenticated: Please login again"));
-                errorEmitter.complete();
-            } catch (Exception e) {
-                errorEmitter.completeWithError(new RuntimeException("Unauthenticated"));
-            }
-            return errorEmitter;
+            return GenerationStreamService.error("Unauthenticated: Please login again");
         }
         
-        log.info("Authenticated user: {} - Starting backend code stream", authentication.getName());
+        String username = authentication.getName();
+        log.info("Authenticated user: {} - Starting backend code stream", username);
         
-        SseEmitter emitter = new SseEmitter(300000L);
-        emitter.onCompletion(() -> log.info("SSE connection completed"));
-        emitter.onTimeout(() -> {
-            log.warn("SSE connection timeout");
-            emitter.complete();
-        });
-        emitter.onError((ex) -> {
-            log.error("SSE error", ex);
-            emitter.completeWithError(ex);
-        });
-        
-        return streamingService.streamBackendCode(prompt, emitter);
+        // A reconnecting EventSource sends Last-Event-ID and resumes its generation
+        return generationStreamService.open(lastEventId, username,
+                () -> streamingService.streamBackendCode(prompt, username));
     }
 
     @GetMapping(value = "/frontend/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     @Operation(summary = "Stream frontend code generation", description = "Streams Angular TypeScript interfaces generation in real-time from prompt")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Streaming started"),
+        @ApiResponse(responseCode = "204", description = "Resumed generation has already finished"),
         @ApiResponse(responseCode = "400", description = "Invalid prompt")
     })
-    public SseEmitter streamFrontendCode(
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamFrontendCode(
             @RequestParam String prompt,
             @RequestParam(required = false) String token,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
             Authentication authentication) {
         
         // Authentication is handled by Spring Security filter chain
         // If we reach here without authentication, SecurityContext should have it
         if (authentication == null || !authentication.isAuthenticated()) {
             log.warn("Unauthenticated request to stream endpoint - token might be invalid or expired");
-            SseEmitter errorEmitter = new SseEmitter(0L);
-            try {
-                errorEmitter.send(SseEmitter.event()
-                        .name("error")
-                        .data("Unauthenticated: Please login again"));
-                errorEmitter.complete();
-            } catch (Exception e) {
-                errorEmitter.completeWithError(new RuntimeException("Unauthenticated"));
-            }
-            return errorEmitter;
+            return GenerationStreamService.error("Unauthenticated: Please login again");
         }
         
-        log.info("Authenticated user: {} - Starting frontend code stream", authentication.getName());
-        
-        SseEmitter emitter = new SseEmitter(300000L);
-        emitter.onCompletion(() -> log.info("SSE connection completed"));
-        emitter.onTimeout(() -> {
-            log.warn("SSE connection timeout");
-            emitter.complete();
-        });
-        emitter.onError((ex) -> {
-            log.error("SSE error", ex);
-            emitter.completeWithError(ex);
-        });
+        String username = authentication.getName();
+        log.info("Authenticated user: {} - Starting frontend code stream", username);
         
-        return streamingService.streamFrontendCode(prompt, emitter);
+        // A reconnecting EventSource sends Last-Event-ID and resumes its generation
+        return generationStreamService.open(lastEventId, username,
+                () -> streamingService.streamFrontendCode(prompt, username));
     }
 }
 
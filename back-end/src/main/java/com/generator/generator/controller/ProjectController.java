@@ -1,5 +1,6 @@
 package com.generator.generator.controller;
 
+import com.generator.generator.dto.GenerationJobResponse;
 import com.generator.generator.dto.ProjectRequest;
 import com.generator.generator.dto.ProjectResponse;
 import com.generator.generator.service.IProjectService;
@@ -91,42 +92,45 @@ public class ProjectController {
     }
 
     @PostMapping("/{id}/generate")
-    @Operation(summary = "Generate all code for project", description = "Generates both Spring Boot CRUD and Angular TypeScript interfaces using Qwen2.5-Coder LLM")
+    @Operation(summary = "Generate all code for project", description = "Starts a job that generates both Spring Boot CRUD and Angular TypeScript interfaces using Qwen2.5-Coder LLM. Poll /api/jobs/{jobId} for the result.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Code generated successfully"),
+        @ApiResponse(responseCode = "202", description = "Generation job accepted"),
+        @ApiResponse(responseCode = "503", description = "Generation queue is full; retry after the Retry-After seconds"),
         @ApiResponse(responseCode = "404", description = "Project not found or access denied")
     })
-    public ResponseEntity<ProjectResponse> generateCode(
+    public ResponseEntity<GenerationJobResponse> generateCode(
             @PathVariable Long id,
             Authentication authentication) {
-        ProjectResponse project = projectService.generateCode(id, authentication.getName());
-        return ResponseEntity.ok(project);
+        GenerationJobResponse job = projectService.generateCode(id, authentication.getName());
+        return ResponseEntity.accepted().body(job);
     }
 
     @PostMapping("/{id}/generate/backend")
-    @Operation(summary = "Generate Spring Boot CRUD code", description = "Generates Spring Boot CRUD REST API code using Qwen2.5-Coder LLM")
+    @Operation(summary = "Generate Spring Boot CRUD code", description = "Starts a job that generates Spring Boot CRUD REST API code using Qwen2.5-Coder LLM. Poll /api/jobs/{jobId} for the result.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Backend code generated successfully"),
+        @ApiResponse(responseCode = "202", description = "Backend generation job accepted"),
+        @ApiResponse(responseCode = "503", description = "Generation queue is full; retry after the Retry-After seconds"),
         @ApiResponse(responseCode = "404", description = "Project not found or access denied")
     })
-    public ResponseEntity<ProjectResponse> generateBackendCode(
+    public ResponseEntity<GenerationJobResponse> generateBackendCode(
             @PathVariable Long id,
             Authentication authentication) {
-        ProjectResponse project = projectService.generateBackendCode(id, authentication.getName());
-        return ResponseEntity.ok(project);
+        GenerationJobResponse job = projectService.generateBackendCode(id, authentication.getName());
+        return ResponseEntity.accepted().body(job);
     }
 
     @PostMapping("/{id}/generate/frontend")
-    @Operation(summary = "Generate Angular TypeScript interfaces", description = "Generates Angular TypeScript interface/model files using Qwen2.5-Coder LLM")
+    @Operation(summary = "Generate Angular TypeScript interfaces", description = "Starts a job that generates Angular TypeScript interface/model files using Qwen2.5-Coder LLM. Poll /api/jobs/{jobId} for the result.")
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "Frontend code generated successfully"),
+        @ApiResponse(responseCode = "202", description = "Frontend generation job accepted"),
+        @ApiResponse(responseCode = "503", description = "Generation queue is full; retry after the Retry-After seconds"),
         @ApiResponse(responseCode = "404", description = "Project not found or access denied")
     })
-    public ResponseEntity<ProjectResponse> generateFrontendCode(
+    public ResponseEntity<GenerationJobResponse> generateFrontendCode(
             @PathVariable Long id,
             Authentication authentication) {
-        ProjectResponse project = projectService.generateFrontendCode(id, authentication.getName());
-        return ResponseEntity.ok(project);
+        GenerationJobResponse job = projectService.generateFrontendCode(id, authentication.getName());
+        return ResponseEntity.accepted().body(job);
     }
 }
 
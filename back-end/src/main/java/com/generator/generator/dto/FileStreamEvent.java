@@ -0,0 +1,33 @@
+package com.generator.generator.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A file boundary or piece of file content detected while a generation streams. {@code offset}
+ * and {@code end} locate the content in the generated code, so clients take it from the
+ * {@code code-chunk} events instead of receiving it twice: {@code content} is only filled on the
+ * server and is left out of the {@code file-chunk} events sent to clients.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FileStreamEvent {
+    public static final String FILE_START = "file-start";
+    public static final String FILE_CHUNK = "file-chunk";
+    public static final String FILE_END = "file-end";
+
+    @JsonIgnore
+    private String event;
+    private String path;
+    private String language;
+    private String content;
+    private Long offset;
+    private Long end;
+}
@@ -0,0 +1,19 @@
+package com.generator.generator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One SSE event of a generation. {@code id} is {@code <generationId>:<sequence>} and is sent as the
+ * SSE event id, so a reconnecting EventSource reports it back in {@code Last-Event-ID}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationEvent {
+    private String id;
+    private long sequence;
+    private String name;
+    private Object data;
+}
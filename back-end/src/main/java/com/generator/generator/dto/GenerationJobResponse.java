@@ -0,0 +1,24 @@
+package com.generator.generator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GenerationJobResponse {
+    private String jobId;
+    private Long projectId;
+    private String target; // "all", "backend" or "frontend"
+    private GenerationJobStatus status;
+    private QueueStatus queue; // Set while the job waits for a generation slot
+    private String error;
+    private ProjectResponse result; // Set once the job has completed
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,10 @@
+package com.generator.generator.dto;
+
+/**
+ * Kind of code generation, used to pick Ollama runtime options and to tag statistics.
+ */
+public enum GenerationType {
+    BACKEND_CRUD,
+    ANGULAR_INTERFACES,
+    EXISTING_PROJECT
+}
@@ -0,0 +1,16 @@
+package com.generator.generator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueueStatus {
+    private int position;
+    private int queueSize;
+    private long estimatedStartSeconds;
+}
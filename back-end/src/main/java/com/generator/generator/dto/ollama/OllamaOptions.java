@@ -0,0 +1,38 @@
+package com.generator.generator.dto.ollama;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ollama runtime options sent in the "options" block of a generate request.
+ * Unset values are omitted so Ollama falls back to the model defaults.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OllamaOptions {
+
+    // Context window size in tokens
+    @JsonProperty("num_ctx")
+    private Integer numCtx;
+
+    // Maximum number of tokens to generate
+    @JsonProperty("num_predict")
+    private Integer numPredict;
+
+    // CPU threads used for generation
+    @JsonProperty("num_thread")
+    private Integer numThread;
+
+    private Double temperature;
+
+    private List<String> stop;
+}
@@ -1,5 +1,6 @@
 package com.generator.generator.dto.ollama;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +11,7 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class OllamaRequest {
     private String model;
     private String prompt;
@@ -17,5 +19,10 @@ public class OllamaRequest {
     @JsonProperty("stream")
     @Builder.Default
     private Boolean stream = false;
-}
 
+    // How long Ollama keeps the model loaded after this request (e.g. "30m", "-1" for forever)
+    @JsonProperty("keep_alive")
+    private String keepAlive;
+
+    private OllamaOptions options;
+}
@@ -0,0 +1,17 @@
+package com.generator.generator.dto.ollama;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One line of an Ollama generate stream, reduced to the fields the streaming pipeline needs.
+ * {@code stats} is only bound for the final {@code done} message.
+ */
+@Getter
+@AllArgsConstructor
+public class OllamaStreamChunk {
+    private final String response;
+    private final boolean done;
+    private final String error;
+    private final OllamaResponse stats;
+}
@@ -0,0 +1,56 @@
+package com.generator.generator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A checkpoint of streamed generation output. The chunks of one generation, in sequence order,
+ * are its raw output so far; they survive a crash or restart. Once the generation has been saved
+ * to its project they are marked {@code saved}, and deleted when its session is forgotten.
+ */
+@Entity
+@Table(name = "generation_chunks", indexes = {
+        @Index(name = "idx_generation_chunks_generation", columnList = "generation_id, sequence"),
+        @Index(name = "idx_generation_chunks_project", columnList = "project_id, target")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@EntityListeners(AuditingEntityListener.class)
+public class GenerationChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "generation_id", nullable = false, length = 36)
+    private String generationId;
+
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    @Column(nullable = false, length = 20)
+    private String target;
+
+    @Column(nullable = false)
+    private Integer sequence;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String content;
+
+    // Null for chunks written before the column existed, which were never saved
+    @Column(name = "saved")
+    private Boolean saved;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
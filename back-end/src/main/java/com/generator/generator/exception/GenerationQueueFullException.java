@@ -0,0 +1,21 @@
+package com.generator.generator.exception;
+
+/**
+ * Thrown when a generation cannot be admitted because the waiting queue is full.
+ */
+public class GenerationQueueFullException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public GenerationQueueFullException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Roughly how long until a queued generation finishes and frees a place in the queue.
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
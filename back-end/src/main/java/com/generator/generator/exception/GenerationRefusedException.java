@@ -0,0 +1,11 @@
+package com.generator.generator.exception;
+
+/**
+ * Thrown when the model answered with a refusal instead of generating any code.
+ */
+public class GenerationRefusedException extends RuntimeException {
+
+    public GenerationRefusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.generator.generator.exception;
+
+/**
+ * Thrown without calling Ollama when every backend is unhealthy or its circuit breaker is open.
+ */
+public class OllamaUnavailableException extends RuntimeException {
+
+    public OllamaUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,34 @@
+package com.generator.generator.repository;
+
+import com.generator.generator.entity.GenerationChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GenerationChunkRepository extends JpaRepository<GenerationChunk, Long> {
+    List<GenerationChunk> findByGenerationIdAndTargetOrderBySequenceAsc(String generationId, String target);
+    Optional<GenerationChunk> findFirstByProjectIdAndTargetOrderByCreatedAtDesc(Long projectId, String target);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GenerationChunk c WHERE c.generationId = :generationId")
+    void deleteByGenerationId(@Param("generationId") String generationId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE GenerationChunk c SET c.saved = true WHERE c.generationId = :generationId")
+    void markSaved(@Param("generationId") String generationId);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GenerationChunk c WHERE c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
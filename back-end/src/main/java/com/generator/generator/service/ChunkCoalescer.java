@@ -0,0 +1,148 @@
+package com.generator.generator.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batches streamed code chunks before they are sent as SSE events.
+ * A chunk that arrives after at least one window of silence (including the first token) is sent
+ * immediately; chunks arriving faster are held for up to one window or until {@code max-chars}
+ * is reached, so a long generation becomes a few frames per second per client instead of one
+ * frame per token.
+ */
+@Component
+public class ChunkCoalescer {
+
+    @Value("${streaming.coalesce.enabled:true}")
+    private boolean enabled;
+
+    @Value("${streaming.coalesce.window-ms:40}")
+    private long windowMillis;
+
+    @Value("${streaming.coalesce.max-chars:4096}")
+    private int maxChars;
+
+    public Flux<String> coalesce(Flux<String> chunks) {
+        if (!enabled) {
+            return chunks;
+        }
+        return Flux.create(sink -> {
+            Batch batch = new Batch(sink);
+            Disposable upstream = chunks.subscribe(batch::add, batch::error, batch::complete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                batch.cancelFlush();
+            });
+        });
+    }
+
+    /**
+     * Batches are cut under this object's monitor but emitted outside it, through an ordered queue,
+     * because {@code sink.next} runs downstream code that takes its own locks.
+     */
+    private final class Batch {
+        private final FluxSink<String> sink;
+        private final StringBuilder pending = new StringBuilder();
+        private final Queue<String> ready = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger emitting = new AtomicInteger();
+        private long lastSentNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        private Disposable scheduledFlush;
+        private volatile boolean terminated;
+        private volatile Throwable failure;
+        private boolean signalled;
+
+        private Batch(FluxSink<String> sink) {
+            this.sink = sink;
+        }
+
+        private void add(String chunk) {
+            synchronized (this) {
+                pending.append(chunk);
+                long sinceLastSend = System.nanoTime() - lastSentNanos;
+                long windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                if (pending.length() >= maxChars || (scheduledFlush == null && sinceLastSend >= windowNanos)) {
+                    cut();
+                } else if (scheduledFlush == null) {
+                    scheduledFlush = Schedulers.parallel().schedule(this::scheduledFlush,
+                            windowNanos - sinceLastSend, TimeUnit.NANOSECONDS);
+                }
+            }
+            emit();
+        }
+
+        private void scheduledFlush() {
+            synchronized (this) {
+                scheduledFlush = null;
+                cut();
+            }
+            emit();
+        }
+
+        private void error(Throwable error) {
+            synchronized (this) {
+                cancelFlush();
+                cut();
+                failure = error;
+                terminated = true;
+            }
+            emit();
+        }
+
+        private void complete() {
+            synchronized (this) {
+                cancelFlush();
+                cut();
+                terminated = true;
+            }
+            emit();
+        }
+
+        private synchronized void cancelFlush() {
+            if (scheduledFlush != null) {
+                scheduledFlush.dispose();
+                scheduledFlush = null;
+            }
+        }
+
+        private void cut() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready.add(pending.toString());
+            pending.setLength(0);
+            lastSentNanos = System.nanoTime();
+        }
+
+        /**
+         * Sends the cut batches in order, on one thread at a time, and then the terminal signal.
+         */
+        private void emit() {
+            if (emitting.getAndIncrement() != 0) {
+                return;
+            }
+            do {
+                String batch;
+                while ((batch = ready.poll()) != null) {
+                    sink.next(batch);
+                }
+                if (terminated && !signalled && ready.isEmpty()) {
+                    signalled = true;
+                    if (failure != null) {
+                        sink.error(failure);
+                    } else {
+                        sink.complete();
+                    }
+                }
+            } while (emitting.decrementAndGet() != 0);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.generator.generator.service;
 
+import com.generator.generator.dto.GenerationType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 @Service
 @RequiredArgsConstructor
@@ -11,16 +13,16 @@ public class CodeGenerationService {
 
     private final OllamaClientService ollamaClientService;
 
-    public String generateSpringBootCrud(String prompt) {
+    public Mono<String> generateSpringBootCrudAsync(String prompt) {
         String systemPrompt = buildSpringBootPrompt(prompt);
-        log.info("Generating Spring Boot CRUD code for prompt: {}", prompt);
-        return ollamaClientService.generateCode(systemPrompt);
+        log.info("Generating Spring Boot CRUD code asynchronously for prompt: {}", prompt);
+        return ollamaClientService.generateCodeAsync(systemPrompt, GenerationType.BACKEND_CRUD);
     }
 
-    public String generateAngularInterfaces(String prompt) {
+    public Mono<String> generateAngularInterfacesAsync(String prompt) {
         String systemPrompt = buildAngularPrompt(prompt);
-        log.info("Generating Angular TypeScript interfaces for prompt: {}", prompt);
-        return ollamaClientService.generateCode(systemPrompt);
+        log.info("Generating Angular TypeScript interfaces asynchronously for prompt: {}", prompt);
+        return ollamaClientService.generateCodeAsync(systemPrompt, GenerationType.ANGULAR_INTERFACES);
     }
 
     private String buildSpringBootPrompt(String userPrompt) {
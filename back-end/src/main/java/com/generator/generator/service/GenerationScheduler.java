@@ -0,0 +1,401 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.QueueStatus;
+import com.generator.generator.exception.GenerationQueueFullException;
+import com.generator.generator.service.ollama.OllamaBackend;
+import com.generator.generator.service.ollama.OllamaBackendRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for LLM generations.
+ * Runs at most {@code max-concurrent-per-backend} generations per available Ollama node (healthy,
+ * circuit breaker not open), keeps a bounded waiting queue and admits waiting requests
+ * round-robin across users so one user's burst cannot starve everyone else. Queue estimates
+ * count from the expected remaining time of the generations already running.
+ * Admitted generations are started, and finished off (formatting, saving), on a dedicated
+ * {@code generation-} pool rather than the shared common pools.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationScheduler {
+
+    @Value("${generation.scheduler.max-concurrent-per-backend:2}")
+    private int maxConcurrentPerBackend;
+
+    @Value("${generation.scheduler.max-queue-size:50}")
+    private int maxQueueSize;
+
+    @Value("${generation.scheduler.initial-duration-estimate:120}")
+    private long initialDurationEstimateSeconds;
+
+    @Value("${generation.executor.pool-size:16}")
+    private int executorPoolSize;
+
+    @Value("${generation.executor.queue-capacity:1000}")
+    private int executorQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private final OllamaBackendRegistry backendRegistry;
+
+    private final Map<String, Deque<Ticket>> waitingByUser = new HashMap<>();
+    private final Deque<String> userRotation = new ArrayDeque<>();
+    private final Set<Ticket> running = new LinkedHashSet<>();
+    private int waitingCount;
+    private int runningCount;
+    private double averageDurationMillis = -1;
+
+    private Scheduler executor;
+
+    @PostConstruct
+    void init() {
+        executor = virtualThreads ? virtualThreadExecutor() : null;
+        if (executor == null) {
+            executor = Schedulers.newBoundedElastic(executorPoolSize, executorQueueCapacity, "generation");
+        }
+    }
+
+    /**
+     * One virtual thread per task, when {@code spring.threads.virtual.enabled} is set and the JVM supports it.
+     * Concurrency stays bounded by admission control, so the pool size does not apply.
+     * Looked up reflectively because the project still compiles for Java 17.
+     */
+    private Scheduler virtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            log.warn("spring.threads.virtual.enabled needs Java 21 or later; the generation pool uses platform threads");
+            return null;
+        }
+        try {
+            ExecutorService perTask = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            log.info("Generation pool runs on virtual threads");
+            return Schedulers.fromExecutorService(perTask, "generation");
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create a virtual thread executor, using platform threads: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.dispose();
+    }
+
+    /**
+     * The generation pool, for blocking steps around a generation such as reading project files
+     * or saving the result.
+     */
+    public Scheduler executor() {
+        return executor;
+    }
+
+    /**
+     * Wraps a generation so it only starts once a slot is free.
+     * While the request waits, {@code onQueued} receives its queue position and estimated start time.
+     * Fails immediately with {@link GenerationQueueFullException} when the queue is full.
+     */
+    public <T> Flux<T> schedule(String userKey, Supplier<Flux<T>> generation, Consumer<QueueStatus> onQueued) {
+        return schedule(userKey, 1, generation, onQueued);
+    }
+
+    /**
+     * Like {@link #schedule(String, Supplier, Consumer)} for work that runs {@code slots} Ollama
+     * generations at once (e.g. backend and frontend together); it waits until that many slots are
+     * free. Capped at the total capacity, so it can always be admitted eventually.
+     */
+    public <T> Flux<T> schedule(String userKey, int slots, Supplier<Flux<T>> generation, Consumer<QueueStatus> onQueued) {
+        return Flux.defer(() -> {
+            Ticket ticket = new Ticket(userKey, slots, onQueued);
+            TicketState state = enqueue(ticket);
+            if (state == null) {
+                log.warn("Generation queue full ({} waiting), rejecting request from {}", maxQueueSize, userKey);
+                return Flux.<T>error(new GenerationQueueFullException(
+                        "Generation queue is full, please try again in a moment", retryAfterSeconds()));
+            }
+            if (state == TicketState.RUNNING) {
+                ticket.admission.tryEmitEmpty();
+            } else {
+                notifyPositions();
+            }
+
+            return ticket.admission.asMono()
+                    .publishOn(executor)
+                    .thenMany(Flux.defer(generation::get))
+                    .doFinally(signal -> finish(ticket));
+        });
+    }
+
+    /**
+     * Admits the ticket if a slot is free, otherwise queues it.
+     * Returns {@code null} when the queue is full.
+     */
+    private synchronized TicketState enqueue(Ticket ticket) {
+        if (waitingCount == 0 && hasRoomFor(ticket)) {
+            admit(ticket);
+            return TicketState.RUNNING;
+        }
+        if (waitingCount >= maxQueueSize) {
+            return null;
+        }
+        Deque<Ticket> userQueue = waitingByUser.get(ticket.userKey);
+        if (userQueue == null) {
+            userQueue = new ArrayDeque<>();
+            waitingByUser.put(ticket.userKey, userQueue);
+            userRotation.addLast(ticket.userKey);
+        }
+        userQueue.addLast(ticket);
+        waitingCount++;
+        log.info("Generation for {} queued ({} waiting, {} running)", ticket.userKey, waitingCount, runningCount);
+        return TicketState.WAITING;
+    }
+
+    private void finish(Ticket ticket) {
+        List<Ticket> admitted;
+        boolean queueChanged = false;
+        synchronized (this) {
+            if (ticket.state == TicketState.WAITING) {
+                Deque<Ticket> userQueue = waitingByUser.get(ticket.userKey);
+                if (userQueue != null && userQueue.remove(ticket)) {
+                    waitingCount--;
+                    queueChanged = true;
+                    if (userQueue.isEmpty()) {
+                        waitingByUser.remove(ticket.userKey);
+                        userRotation.remove(ticket.userKey);
+                    }
+                }
+            } else if (ticket.state == TicketState.RUNNING) {
+                running.remove(ticket);
+                runningCount -= ticket.admittedSlots;
+                recordDuration(System.currentTimeMillis() - ticket.admittedAt);
+            }
+            ticket.state = TicketState.FINISHED;
+            admitted = admitWaiting();
+        }
+        admitted.forEach(next -> next.admission.tryEmitEmpty());
+        if (queueChanged || !admitted.isEmpty()) {
+            notifyPositions();
+        }
+    }
+
+    /**
+     * Admits waiting tickets when capacity has grown without a generation finishing, e.g. when a
+     * backend recovers, and refreshes the estimates of the ones still waiting.
+     */
+    @Scheduled(fixedDelayString = "${generation.scheduler.rebalance-interval:5000}")
+    public void rebalance() {
+        List<Ticket> admitted;
+        synchronized (this) {
+            if (waitingCount == 0) {
+                return;
+            }
+            admitted = admitWaiting();
+        }
+        admitted.forEach(next -> next.admission.tryEmitEmpty());
+        notifyPositions();
+    }
+
+    /**
+     * Strictly in rotation order: a ticket that needs more slots than are free is not overtaken.
+     */
+    private List<Ticket> admitWaiting() {
+        List<Ticket> admitted = new ArrayList<>();
+        while (waitingCount > 0 && hasRoomFor(peekWaiting())) {
+            Ticket next = nextWaiting();
+            admit(next);
+            admitted.add(next);
+        }
+        return admitted;
+    }
+
+    private void admit(Ticket ticket) {
+        ticket.state = TicketState.RUNNING;
+        ticket.admittedAt = System.currentTimeMillis();
+        ticket.admittedSlots = slots(ticket);
+        runningCount += ticket.admittedSlots;
+        running.add(ticket);
+    }
+
+    private boolean hasRoomFor(Ticket ticket) {
+        return runningCount + slots(ticket) <= capacity();
+    }
+
+    private int slots(Ticket ticket) {
+        return Math.max(1, Math.min(ticket.slots, capacity()));
+    }
+
+    private Ticket peekWaiting() {
+        return waitingByUser.get(userRotation.peekFirst()).peekFirst();
+    }
+
+    /**
+     * Takes the head ticket of the next user in the rotation and moves that user to the back.
+     */
+    private Ticket nextWaiting() {
+        String userKey = userRotation.pollFirst();
+        Deque<Ticket> userQueue = waitingByUser.get(userKey);
+        Ticket ticket = userQueue.pollFirst();
+        waitingCount--;
+        if (userQueue.isEmpty()) {
+            waitingByUser.remove(userKey);
+        } else {
+            userRotation.addLast(userKey);
+        }
+        return ticket;
+    }
+
+    /**
+     * Waiting tickets in the order the round-robin rotation will admit them.
+     */
+    private List<Ticket> allWaiting() {
+        List<Ticket> ordered = new ArrayList<>(waitingCount);
+        List<Deque<Ticket>> queues = new ArrayList<>();
+        for (String userKey : userRotation) {
+            queues.add(new ArrayDeque<>(waitingByUser.get(userKey)));
+        }
+        boolean remaining = true;
+        while (remaining) {
+            remaining = false;
+            for (Deque<Ticket> queue : queues) {
+                Ticket next = queue.pollFirst();
+                if (next != null) {
+                    ordered.add(next);
+                    remaining = true;
+                }
+            }
+        }
+        return ordered;
+    }
+
+    private void notifyPositions() {
+        List<Ticket> ordered;
+        long[] startMillis;
+        synchronized (this) {
+            ordered = allWaiting();
+            startMillis = new long[ordered.size()];
+            long average = averageDurationMillis();
+            PriorityQueue<Long> freeSlots = freeSlots();
+            // Each waiting ticket takes the slots that free up first, and holds them for an average generation
+            for (int i = 0; i < ordered.size(); i++) {
+                int slots = Math.min(slots(ordered.get(i)), freeSlots.size());
+                long start = 0;
+                for (int slot = 0; slot < slots; slot++) {
+                    start = Math.max(start, freeSlots.poll());
+                }
+                for (int slot = 0; slot < slots; slot++) {
+                    freeSlots.add(start + average);
+                }
+                startMillis[i] = start;
+            }
+        }
+        for (int i = 0; i < ordered.size(); i++) {
+            Ticket ticket = ordered.get(i);
+            if (ticket.onQueued == null) {
+                continue;
+            }
+            int position = i + 1;
+            long estimatedStart = (long) Math.ceil(startMillis[i] / 1000.0);
+            try {
+                ticket.onQueued.accept(QueueStatus.builder()
+                        .position(position)
+                        .queueSize(ordered.size())
+                        .estimatedStartSeconds(estimatedStart)
+                        .build());
+            } catch (Exception e) {
+                log.debug("Could not publish queue position to {}: {}", ticket.userKey, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A place in the queue opens when the first waiting ticket is admitted, i.e. when the running
+     * generation expected to end first ends.
+     */
+    private synchronized long retryAfterSeconds() {
+        Long firstFree = freeSlots().peek();
+        return Math.max(1, (long) Math.ceil((firstFree == null ? averageDurationMillis() : firstFree) / 1000.0));
+    }
+
+    /**
+     * Milliseconds from now until each slot is expected to be free: the expected remaining time of
+     * each running generation (an average one, less the time it has already run), and zero for idle slots.
+     */
+    private PriorityQueue<Long> freeSlots() {
+        long now = System.currentTimeMillis();
+        long average = averageDurationMillis();
+        PriorityQueue<Long> freeSlots = new PriorityQueue<>();
+        for (Ticket ticket : running) {
+            long remaining = Math.max(0, ticket.admittedAt + average - now);
+            for (int slot = 0; slot < ticket.admittedSlots; slot++) {
+                freeSlots.add(remaining);
+            }
+        }
+        for (int slot = runningCount; slot < capacity(); slot++) {
+            freeSlots.add(0L);
+        }
+        return freeSlots;
+    }
+
+    private long averageDurationMillis() {
+        return averageDurationMillis < 0 ? initialDurationEstimateSeconds * 1000 : Math.round(averageDurationMillis);
+    }
+
+    private void recordDuration(long durationMillis) {
+        averageDurationMillis = averageDurationMillis < 0
+                ? durationMillis
+                : 0.8 * averageDurationMillis + 0.2 * durationMillis;
+    }
+
+    /**
+     * Slots on the backends that can take generations now. At least one, so that with every node down a
+     * request still runs and fails fast with the backend error instead of waiting in the queue.
+     */
+    private int capacity() {
+        long available = backendRegistry.getBackends().stream().filter(OllamaBackend::isAvailable).count();
+        return (int) Math.max(1, maxConcurrentPerBackend * available);
+    }
+
+    private enum TicketState { WAITING, RUNNING, FINISHED }
+
+    private static final class Ticket {
+        private final String userKey;
+        private final int slots;
+        private final Consumer<QueueStatus> onQueued;
+        private final Sinks.Empty<Void> admission = Sinks.empty();
+        private TicketState state = TicketState.WAITING;
+        private long admittedAt;
+        private int admittedSlots;
+
+        private Ticket(String userKey, int slots, Consumer<QueueStatus> onQueued) {
+            this.userKey = userKey;
+            this.slots = slots;
+            this.onQueued = onQueued;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.GenerationJobResponse;
+import com.generator.generator.dto.ProjectResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+public interface IGenerationJobService {
+    /**
+     * @param generations how many Ollama generations {@code work} runs at once; it takes that many scheduler slots
+     * @throws com.generator.generator.exception.GenerationQueueFullException if the generation queue is full
+     */
+    GenerationJobResponse submit(Long projectId, String username, String target, int generations,
+                                 Supplier<Mono<ProjectResponse>> work);
+    GenerationJobResponse getJob(String jobId, String username);
+    Flux<GenerationJobResponse> watchJob(String jobId, String username);
+}
@@ -1,5 +1,6 @@
 package com.generator.generator.service;
 
+import com.generator.generator.dto.GenerationJobResponse;
 import com.generator.generator.dto.ProjectRequest;
 import com.generator.generator.dto.ProjectResponse;
 
@@ -11,8 +12,8 @@ public interface IProjectService {
     List<ProjectResponse> getAllProjectsByUser(String username);
     ProjectResponse updateProject(Long id, ProjectRequest request, String username);
     void deleteProject(Long id, String username);
-    ProjectResponse generateCode(Long projectId, String username);
-    ProjectResponse generateBackendCode(Long projectId, String username);
-    ProjectResponse generateFrontendCode(Long projectId, String username);
+    GenerationJobResponse generateCode(Long projectId, String username);
+    GenerationJobResponse generateBackendCode(Long projectId, String username);
+    GenerationJobResponse generateFrontendCode(Long projectId, String username);
 }
 
@@ -1,6 +1,6 @@
 package com.generator.generator.service;
 
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.generator.generator.service.stream.GenerationSession;
 import reactor.core.publisher.Flux;
 
 public interface IStreamingCodeGenerationService {
@@ -8,7 +8,7 @@ public interface IStreamingCodeGenerationService {
     Flux<String> generateSpringBootCrudStream(String prompt, String existingProjectPath);
     Flux<String> generateAngularInterfacesStream(String prompt);
     Flux<String> generateAngularInterfacesStream(String prompt, String existingProjectPath);
-    SseEmitter streamBackendCode(String prompt, SseEmitter emitter);
-    SseEmitter streamFrontendCode(String prompt, SseEmitter emitter);
+    GenerationSession streamBackendCode(String prompt, String username);
+    GenerationSession streamFrontendCode(String prompt, String username);
 }
 
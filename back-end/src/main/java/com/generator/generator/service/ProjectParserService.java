@@ -72,6 +72,13 @@ public class ProjectParserService {
         return files;
     }
 
+    /**
+     * Creates a parser that reports files incrementally while a generation is still streaming.
+     */
+    public StreamingFileParser newStreamingParser() {
+        return new StreamingFileParser(this::detectLanguage);
+    }
+
     private String detectLanguage(String filePath) {
         if (filePath.endsWith(".html")) return "html";
         if (filePath.endsWith(".css")) return "css";
@@ -0,0 +1,190 @@
+package com.generator.generator.service;
+
+import com.generator.generator.exception.GenerationRefusedException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Detects model refusals ("I'm sorry, I can't...") at the start of a generation.
+ * The token stream is fed character by character through an Aho-Corasick automaton holding
+ * both the refusal phrases and the markers that open file content ({@code FILE:} and code
+ * fences), so state carries across token boundaries and no per-token strings are allocated.
+ * Only the first {@code prelude-chars} characters are scanned, and scanning stops as soon as
+ * file content begins. Chunks are never dropped: a stream that refused and never produced any
+ * file content fails with {@link GenerationRefusedException} when it completes.
+ */
+@Component
+@Slf4j
+public class RefusalDetector {
+
+    private static final List<String> CONTENT_MARKERS = List.of("file:", "```");
+    private static final int ALPHABET = 128;
+
+    @Value("${generation.refusal.patterns:i'm sorry,i am sorry,i apologize,i can't help,i cannot help,i can't assist,i cannot assist,i'm unable to,i am unable to,i'm not able to,as an ai}")
+    private String[] refusalPatterns;
+
+    @Value("${generation.refusal.prelude-chars:600}")
+    private int preludeChars;
+
+    private int[][] transitions;
+    /** Per state: 0 = no match, 1 = refusal phrase ends here, 2 = content marker ends here. */
+    private byte[] matches;
+
+    @PostConstruct
+    void init() {
+        List<String> patterns = new ArrayList<>();
+        List<Byte> kinds = new ArrayList<>();
+        for (String pattern : refusalPatterns) {
+            String normalized = pattern.trim().toLowerCase();
+            if (normalized.isEmpty()) {
+                continue;
+            }
+            if (normalized.chars().anyMatch(c -> symbol((char) c) < 0)) {
+                // Only ASCII is scanned; cutting the phrase short would match far too much
+                log.warn("Ignoring refusal pattern '{}': only ASCII phrases are supported", pattern);
+                continue;
+            }
+            patterns.add(normalized);
+            kinds.add((byte) 1);
+        }
+        for (String marker : CONTENT_MARKERS) {
+            patterns.add(marker);
+            kinds.add((byte) 2);
+        }
+        build(patterns, kinds);
+        log.info("Refusal detector built with {} patterns ({} states)", patterns.size(), transitions.length);
+    }
+
+    /**
+     * Passes every chunk through unchanged and fails the stream at completion if the prelude
+     * contained a refusal and no file content ever started.
+     */
+    public Flux<String> guard(Flux<String> chunks) {
+        return Flux.defer(() -> {
+            Scan scan = new Scan();
+            return chunks
+                    .doOnNext(scan::feed)
+                    .concatWith(Mono.defer(() -> scan.refused && !scan.contentStarted
+                            ? Mono.error(new GenerationRefusedException(
+                                    "The model declined to generate code for this prompt. Please rephrase it and try again."))
+                            : Mono.empty()));
+        });
+    }
+
+    /**
+     * Builds the automaton as a full transition table (DFA), so feeding a character is one array lookup.
+     */
+    private void build(List<String> patterns, List<Byte> kinds) {
+        List<int[]> gotoTable = new ArrayList<>();
+        List<Byte> output = new ArrayList<>();
+        gotoTable.add(newRow());
+        output.add((byte) 0);
+
+        for (int p = 0; p < patterns.size(); p++) {
+            int state = 0;
+            for (char c : patterns.get(p).toCharArray()) {
+                int symbol = symbol(c);
+                if (gotoTable.get(state)[symbol] < 0) {
+                    gotoTable.get(state)[symbol] = gotoTable.size();
+                    gotoTable.add(newRow());
+                    output.add((byte) 0);
+                }
+                state = gotoTable.get(state)[symbol];
+            }
+            // A content marker wins over a refusal phrase ending in the same state
+            output.set(state, (byte) Math.max(output.get(state), kinds.get(p)));
+        }
+
+        int[] failure = new int[gotoTable.size()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int[] root = gotoTable.get(0);
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            if (root[symbol] < 0) {
+                root[symbol] = 0;
+            } else {
+                failure[root[symbol]] = 0;
+                queue.add(root[symbol]);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            int[] row = gotoTable.get(state);
+            if (output.get(state) == 0) {
+                output.set(state, output.get(failure[state]));
+            }
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int next = row[symbol];
+                if (next < 0) {
+                    row[symbol] = gotoTable.get(failure[state])[symbol];
+                } else {
+                    failure[next] = gotoTable.get(failure[state])[symbol];
+                    queue.add(next);
+                }
+            }
+        }
+
+        transitions = gotoTable.toArray(new int[0][]);
+        matches = new byte[output.size()];
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = output.get(i);
+        }
+    }
+
+    private static int[] newRow() {
+        int[] row = new int[ALPHABET];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    /**
+     * Lower-cases ASCII and maps typographic apostrophes to {@code '}; other characters have no symbol.
+     */
+    private static int symbol(char c) {
+        if (c == '\u2019') {
+            return '\'';
+        }
+        if (c >= ALPHABET) {
+            return -1;
+        }
+        return c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c;
+    }
+
+    private final class Scan {
+        private int state;
+        private int scanned;
+        private boolean refused;
+        private boolean contentStarted;
+
+        /**
+         * Refusals are only looked for in the prelude; once one is found, scanning continues
+         * until file content starts, since a model may apologise and then produce the code.
+         */
+        private void feed(String chunk) {
+            for (int i = 0; i < chunk.length(); i++) {
+                if (contentStarted || (!refused && scanned >= preludeChars)) {
+                    return;
+                }
+                scanned++;
+                int symbol = symbol(chunk.charAt(i));
+                state = symbol < 0 ? 0 : transitions[state][symbol];
+                byte match = matches[state];
+                if (match == 2) {
+                    contentStarted = true;
+                } else if (match == 1 && !refused) {
+                    refused = true;
+                    log.warn("LLM refusal detected near the start of the output");
+                }
+            }
+        }
+    }
+}
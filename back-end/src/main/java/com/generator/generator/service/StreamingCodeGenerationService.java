@@ -1,8 +1,17 @@
 package com.generator.generator.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generator.generator.config.OllamaOptionsProperties;
+import com.generator.generator.dto.GenerationType;
 import com.generator.generator.dto.ollama.OllamaRequest;
-import com.generator.generator.dto.ollama.OllamaResponse;
+import com.generator.generator.dto.ollama.OllamaStreamChunk;
+import com.generator.generator.service.ollama.OllamaBackend;
+import com.generator.generator.service.ollama.OllamaBackendRegistry;
+import com.generator.generator.service.ollama.NdjsonLineDecoder;
+import com.generator.generator.service.ollama.OllamaMetricsService;
+import com.generator.generator.service.ollama.OllamaStreamParser;
+import com.generator.generator.service.stream.GenerationSession;
+import com.generator.generator.service.stream.GenerationStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,34 +19,38 @@ import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class StreamingCodeGenerationService implements IStreamingCodeGenerationService {
 
-    @Value("${ollama.api.url:http://localhost:11434}")
-    private String ollamaApiUrl;
-
     @Value("${ollama.model.name:qwen2.5-coder}")
     private String modelName;
 
     @Value("${ollama.timeout:300}")
     private Long timeoutSeconds;
 
-    private final WebClient.Builder webClientBuilder;
+    @Value("${ollama.stream.idle-timeout:120}")
+    private long idleTimeoutSeconds;
+
+    @Value("${ollama.model.keep-alive:30m}")
+    private String keepAlive;
+
+    @Value("${ollama.http.max-in-memory-size:16777216}")
+    private int maxLineLength;
+
+    private final OllamaBackendRegistry backendRegistry;
+    private final OllamaMetricsService metricsService;
+    private final OllamaOptionsProperties optionsProperties;
     private final ObjectMapper objectMapper;
     private final ExistingProjectReaderService projectReaderService;
-    private final CodeFormatterService codeFormatterService;
+    private final RefusalDetector refusalDetector;
+    private final GenerationStreamService generationStreamService;
 
     @Override
     public Flux<String> generateSpringBootCrudStream(String prompt) {
@@ -61,7 +74,8 @@ public class StreamingCodeGenerationService implements IStreamingCodeGenerationS
         String systemPrompt = buildSpringBootPrompt(prompt, existingCode);
         log.info("Streaming Spring Boot CRUD code generation for prompt: {} (with existing code: {})", 
                 prompt, !existingCode.isEmpty() ? "yes" : "no");
-        return generateCodeStream(systemPrompt);
+        return generateCodeStream(systemPrompt,
+                existingCode.isEmpty() ? GenerationType.BACKEND_CRUD : GenerationType.EXISTING_PROJECT);
     }
 
     @Override
@@ -86,110 +100,97 @@ public class StreamingCodeGenerationService implements IStreamingCodeGenerationS
         String systemPrompt = buildAngularPrompt(prompt, existingCode);
         log.info("Streaming Angular TypeScript interfaces generation for prompt: {} (with existing code: {})", 
                 prompt, !existingCode.isEmpty() ? "yes" : "no");
-        return generateCodeStream(systemPrompt);
+        return generateCodeStream(systemPrompt,
+                existingCode.isEmpty() ? GenerationType.ANGULAR_INTERFACES : GenerationType.EXISTING_PROJECT);
     }
 
-    private Flux<String> generateCodeStream(String prompt) {
+    private Flux<String> generateCodeStream(String prompt, GenerationType type) {
         OllamaRequest request = OllamaRequest.builder()
                 .model(modelName)
                 .prompt(prompt)
                 .stream(true)  // Enable streaming
+                .keepAlive(keepAlive)
+                .options(optionsProperties.forType(type))
                 .build();
 
-        WebClient webClient = webClientBuilder
-                .baseUrl(ollamaApiUrl)
-                .build();
-
-        // Increase timeout to 15 minutes for large code generation
-        // Ensure minimum 15 minutes (900 seconds) for large code generation
-        long extendedTimeout = timeoutSeconds != null && timeoutSeconds > 900 ? timeoutSeconds : 900L;
+        // The first token may take long (model load, prompt evaluation of a large context): allow at least 15 minutes.
+        // After that the stream only times out when Ollama goes quiet, however long the whole generation takes
+        long firstTokenTimeout = timeoutSeconds != null && timeoutSeconds > 900 ? timeoutSeconds : 900L;
         
-        log.info("Starting code generation stream with {} second timeout", extendedTimeout);
+        log.info("Starting code generation stream with {}s first-token and {}s idle timeout", firstTokenTimeout, idleTimeoutSeconds);
 
-        return webClient.post()
+        // Timeouts apply per backend call, so they count against that node's circuit breaker
+        return backendRegistry.stream(backend -> streamFromBackend(backend, request, type)
+                        .timeout(Mono.delay(Duration.ofSeconds(firstTokenTimeout)),
+                                chunk -> Mono.delay(Duration.ofSeconds(idleTimeoutSeconds))))
+                .takeUntil(OllamaStreamChunk::isDone)
+                // Filter out the done marker AFTER takeUntil sees it. Whitespace-only tokens are kept:
+                // they carry the newlines and spaces of the generated code
+                .filter(response -> !response.isDone())
+                .map(OllamaStreamChunk::getResponse)
+                .filter(text -> text != null && !text.isEmpty())
+                .transform(refusalDetector::guard)
+                .doOnNext(chunk -> log.debug("Emitting chunk: {} chars", chunk.length()))
+                .doOnComplete(() -> log.info("Stream completed successfully"))
+                .doOnError(error -> log.error("Stream error: {}", error.getMessage(), error));
+    }
+
+    /**
+     * Streams one generation from a single backend and parses each NDJSON line.
+     */
+    private Flux<OllamaStreamChunk> streamFromBackend(OllamaBackend backend, OllamaRequest request, GenerationType type) {
+        log.info("Streaming from Ollama backend {}", backend.getUrl());
+        return backend.getWebClient().post()
                 .uri("/api/generate")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(request)
                 .retrieve()
                 .bodyToFlux(DataBuffer.class)
-                .timeout(Duration.ofSeconds(extendedTimeout))
-                .map(buffer -> {
-                    String content = buffer.toString(StandardCharsets.UTF_8);
-                    DataBufferUtils.release(buffer);
-                    return content;
-                })
-                .concatMap(content -> {
-                    // Split by newlines and filter empty lines more efficiently
-                    String[] lines = content.split("\\r?\\n");
-                    return Flux.fromArray(lines)
-                            .filter(line -> line != null && !line.trim().isEmpty());
-                })
-                .map(this::parseOllamaResponse)
-                .filter(response -> response != null) // Filter nulls first
-                .takeUntil(response -> Boolean.TRUE.equals(response.getDone()))
-                // Filter out done markers and invalid responses AFTER takeUntil sees them
-                .filter(response -> {
-                    Boolean done = response.getDone();
-                    if (Boolean.TRUE.equals(done)) {
-                        return false; // Don't emit done markers as content
+                .transform(this::decodeLines)
+                .transform(this::parseChunks)
+                .handle((chunk, sink) -> {
+                    if (chunk.getError() != null) {
+                        sink.error(new RuntimeException("Ollama error: " + chunk.getError()));
+                        return;
                     }
-                    
-                    String responseText = response.getResponse();
-                    if (responseText == null || responseText.trim().isEmpty()) {
-                        return false;
+                    if (chunk.isDone() && chunk.getStats() != null) {
+                        metricsService.recordGeneration(modelName, type, request.getOptions(), backend, chunk.getStats());
                     }
-                    
-                    // Skip if response contains refusal messages (quick check)
-                    String lower = responseText.toLowerCase();
-                    if (lower.contains("i'm sorry") || lower.contains("i can't") || 
-                        lower.contains("cannot") || lower.contains("unable to") ||
-                        lower.contains("not able") || lower.contains("i apologize")) {
-                        log.warn("LLM refusal detected, skipping chunk");
-                        return false;
-                    }
-                    
-                    return true;
-                })
-                .map(response -> {
-                    String resp = response.getResponse();
-                    return resp != null ? resp : "";
-                })
-                .filter(text -> !text.trim().isEmpty())
-                .doOnNext(chunk -> log.debug("Emitting chunk: {} chars", chunk.length()))
-                .doOnComplete(() -> log.info("Stream completed successfully"))
-                .doOnError(error -> log.error("Stream error: {}", error.getMessage(), error))
-                .onErrorResume(error -> {
-                    log.error("Streaming error: {}", error.getMessage());
-                    return Flux.just("// Error generating code: " + error.getMessage() + "\n");
+                    sink.next(chunk);
                 });
     }
 
-    private OllamaResponse parseOllamaResponse(String jsonLine) {
-        try {
-            String trimmed = jsonLine.trim();
-            if (trimmed.isEmpty()) {
-                log.debug("Empty line in Ollama response");
-                return null;
-            }
-            
-            // Remove potential BOM or leading whitespace
-            if (trimmed.startsWith("\uFEFF")) {
-                trimmed = trimmed.substring(1);
-            }
-            
-            // Try to parse as JSON
-            OllamaResponse response = objectMapper.readValue(trimmed, OllamaResponse.class);
-            log.debug("Successfully parsed Ollama response - done: {}, has content: {}", 
-                response.getDone(), 
-                response.getResponse() != null && !response.getResponse().isEmpty());
-            return response;
-        } catch (Exception e) {
-            // Sometimes Ollama sends partial JSON or non-JSON lines
-            log.debug("Failed to parse Ollama response line: {} - Error: {}", 
-                jsonLine.substring(0, Math.min(200, jsonLine.length())), 
-                e.getMessage());
-            return null;
-        }
+    /**
+     * Reassembles NDJSON lines that span network buffers. Each buffer is released once scanned.
+     */
+    private Flux<byte[]> decodeLines(Flux<DataBuffer> buffers) {
+        return Flux.defer(() -> {
+            NdjsonLineDecoder decoder = new NdjsonLineDecoder(maxLineLength);
+            return buffers
+                    .concatMapIterable(buffer -> {
+                        try {
+                            return decoder.decode(buffer);
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.flush())));
+        });
+    }
+
+    /**
+     * Extracts the token text from each line with one reusable parser per stream.
+     */
+    private Flux<OllamaStreamChunk> parseChunks(Flux<byte[]> lines) {
+        return Flux.using(
+                () -> new OllamaStreamParser(objectMapper),
+                parser -> lines.<OllamaStreamChunk>handle((line, sink) -> {
+                    OllamaStreamChunk chunk = parser.parse(line);
+                    if (chunk != null) {
+                        sink.next(chunk);
+                    }
+                }),
+                OllamaStreamParser::close);
     }
 
     private String buildSpringBootPrompt(String userPrompt, String existingCode) {
@@ -374,195 +375,16 @@ public class StreamingCodeGenerationService implements IStreamingCodeGenerationS
     }
 
     @Override
-    public SseEmitter streamBackendCode(String prompt, SseEmitter emitter) {
+    public GenerationSession streamBackendCode(String prompt, String username) {
         log.info("Starting backend code stream for prompt: {} chars", prompt.length());
-        
-        CompletableFuture.runAsync(() -> {
-            try {
-                StringBuilder fullCode = new StringBuilder();
-                AtomicInteger chunkCount = new AtomicInteger(0);
-                
-                Flux<String> codeStream = generateSpringBootCrudStream(prompt);
-                
-                log.info("Flux created, subscribing...");
-                
-                codeStream.subscribe(
-                    chunk -> {
-                        try {
-                            int count = chunkCount.incrementAndGet();
-                            fullCode.append(chunk);
-                            log.debug("Sending chunk #{}: {} chars", count, chunk.length());
-                            
-                            emitter.send(SseEmitter.event()
-                                    .name("code-chunk")
-                                    .data(chunk));
-                        } catch (IOException e) {
-                            log.error("Error sending chunk #{}", chunkCount.get(), e);
-                            try {
-                                emitter.completeWithError(e);
-                            } catch (Exception ex) {
-                                log.error("Error completing emitter with error", ex);
-                            }
-                        }
-                    },
-                    error -> {
-                        log.error("Error in stream after {} chunks", chunkCount.get(), error);
-                        try {
-                            emitter.send(SseEmitter.event()
-                                    .name("error")
-                                    .data("Error generating code: " + error.getMessage()));
-                            Thread.sleep(100);
-                            emitter.completeWithError(error);
-                        } catch (Exception e) {
-                            log.error("Error sending error event", e);
-                            try {
-                                emitter.completeWithError(error);
-                            } catch (Exception ex) {
-                                log.error("Error completing emitter", ex);
-                            }
-                        }
-                    },
-                    () -> {
-                        try {
-                            log.info("Stream completed successfully. Total chunks: {}, Total code length: {}", 
-                                chunkCount.get(), fullCode.length());
-                            
-                            if (fullCode.length() == 0) {
-                                log.warn("Stream completed but no code was generated after {} chunks!", chunkCount.get());
-                                try {
-                                    emitter.send(SseEmitter.event()
-                                            .name("error")
-                                            .data("No code was generated. Please check Ollama is running and the model is available."));
-                                    Thread.sleep(500);
-                                } catch (Exception ex) {
-                                    log.error("Error sending error event: {}", ex.getMessage());
-                                }
-                            } else {
-                                log.info("Sending complete event with {} characters of code", fullCode.length());
-                                try {
-                                    emitter.send(SseEmitter.event()
-                                            .name("complete")
-                                            .data("Code generation completed"));
-                                    // Wait longer to ensure complete event is sent before closing
-                                    Thread.sleep(500);
-                                    log.info("Complete event sent, closing emitter...");
-                                } catch (Exception ex) {
-                                    log.error("Error sending complete event: {}", ex.getMessage(), ex);
-                                }
-                            }
-                            emitter.complete();
-                            log.info("SSE emitter completed successfully. Total: {} chunks, {} chars", 
-                                chunkCount.get(), fullCode.length());
-                        } catch (Exception e) {
-                            log.error("Error completing stream", e);
-                            try {
-                                emitter.completeWithError(e);
-                            } catch (Exception ex) {
-                                log.error("Error completing emitter with error", ex);
-                            }
-                        }
-                    }
-                );
-            } catch (Exception e) {
-                log.error("Error starting stream", e);
-                try {
-                    emitter.completeWithError(e);
-                } catch (Exception ex) {
-                    log.error("Error completing emitter with initial error", ex);
-                }
-            }
-        });
-        
-        return emitter;
+        return generationStreamService.start(username, () -> generateSpringBootCrudStream(prompt), false,
+                code -> "Code generation completed");
     }
 
     @Override
-    public SseEmitter streamFrontendCode(String prompt, SseEmitter emitter) {
+    public GenerationSession streamFrontendCode(String prompt, String username) {
         log.info("Starting frontend code stream for prompt: {} chars", prompt.length());
-        
-        CompletableFuture.runAsync(() -> {
-            try {
-                StringBuilder fullCode = new StringBuilder();
-                AtomicInteger chunkCount = new AtomicInteger(0);
-                
-                Flux<String> codeStream = generateAngularInterfacesStream(prompt);
-                
-                log.info("Flux created, subscribing...");
-                
-                codeStream.subscribe(
-                    chunk -> {
-                        try {
-                            int count = chunkCount.incrementAndGet();
-                            fullCode.append(chunk);
-                            log.info("Sending chunk #{}: {} chars", count, chunk.length());
-                            
-                            // Send chunk with retry mechanism
-                            emitter.send(SseEmitter.event()
-                                    .name("code-chunk")
-                                    .data(chunk));
-                        } catch (IOException e) {
-                            log.error("Error sending chunk #{}: {}", chunkCount.get(), e.getMessage(), e);
-                            // Don't complete on first error, just log it
-                        } catch (Exception e) {
-                            log.error("Unexpected error sending chunk #{}: {}", chunkCount.get(), e.getMessage(), e);
-                        }
-                    },
-                    error -> {
-                        log.error("Error in stream after {} chunks: {}", chunkCount.get(), error.getMessage(), error);
-                        try {
-                            emitter.send(SseEmitter.event()
-                                    .name("error")
-                                    .data("Error generating code: " + error.getMessage()));
-                            Thread.sleep(200); // Give time for error event to be sent
-                            emitter.completeWithError(error);
-                        } catch (Exception e) {
-                            log.error("Error sending error event: {}", e.getMessage(), e);
-                            try {
-                                emitter.completeWithError(error);
-                            } catch (Exception ex) {
-                                log.error("Error completing emitter: {}", ex.getMessage(), ex);
-                            }
-                        }
-                    },
-                    () -> {
-                        try {
-                            log.info("Stream completed successfully. Total chunks: {}, Total code length: {}", 
-                                chunkCount.get(), fullCode.length());
-                            
-                            if (fullCode.length() == 0) {
-                                log.warn("Stream completed but no code was generated!");
-                                emitter.send(SseEmitter.event()
-                                        .name("error")
-                                        .data("No code was generated. Please check Ollama is running and the model is available."));
-                                Thread.sleep(200);
-                                emitter.complete();
-                            } else {
-                                // Send completion event and wait before closing
-                                emitter.send(SseEmitter.event()
-                                        .name("complete")
-                                        .data("Code generation completed"));
-                                log.info("Sent complete event, waiting before closing emitter...");
-                                Thread.sleep(300); // Wait longer to ensure complete event is sent
-                                emitter.complete();
-                                log.info("SSE emitter completed successfully");
-                            }
-                        } catch (Exception e) {
-                            log.error("Error completing stream: {}", e.getMessage(), e);
-                            try {
-                                emitter.completeWithError(e);
-                            } catch (Exception ex) {
-                                log.error("Error completing emitter with error: {}", ex.getMessage(), ex);
-                            }
-                        }
-                    }
-                );
-            } catch (Exception e) {
-                log.error("Error starting stream", e);
-                emitter.completeWithError(e);
-            }
-        });
-        
-        return emitter;
+        return generationStreamService.start(username, () -> generateAngularInterfacesStream(prompt), false,
+                code -> "Code generation completed");
     }
 }
-
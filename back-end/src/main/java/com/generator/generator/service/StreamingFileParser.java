@@ -0,0 +1,270 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.FileStreamEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Incremental version of {@link ProjectParserService#parseProjectFiles(String)}.
+ * Fed the generated text chunk by chunk, it recognises {@code FILE: path} markers followed by
+ * a fenced (or unfenced) block and reports each file as start / chunk / end events as soon as
+ * the text arrives. All events carry the offsets of the file's content (or, for chunks, of
+ * that piece of it) in the whole generated text. Text outside files is ignored. Only the few characters that could be the
+ * beginning of a marker are held back between chunks. One instance per stream; not thread-safe.
+ */
+public class StreamingFileParser {
+
+    private static final String FILE_MARKER = "FILE:";
+    private static final String NEXT_FILE_MARKER = "\nFILE:";
+    private static final String FENCE = "```";
+    private static final int MAX_PATH_LENGTH = 300;
+    private static final int MAX_LANGUAGE_LINE = 40;
+
+    private enum State { OUTSIDE, PATH, BEFORE_CONTENT, LANGUAGE, FENCED, UNFENCED }
+
+    private final UnaryOperator<String> languageDetector;
+    private final StringBuilder buffer = new StringBuilder();
+    private State state = State.OUTSIDE;
+    // Offset of the buffer's first character in the whole generated text
+    private long position;
+    private String path;
+    private long contentStart;
+    private List<FileStreamEvent> events;
+
+    public StreamingFileParser(UnaryOperator<String> languageDetector) {
+        this.languageDetector = languageDetector;
+    }
+
+    /**
+     * Consumes the next chunk of generated text and returns the file events it completes.
+     */
+    public List<FileStreamEvent> feed(String chunk) {
+        events = new ArrayList<>();
+        buffer.append(chunk);
+        while (step(false)) {
+            // keep going while a step makes progress
+        }
+        return events;
+    }
+
+    /**
+     * Flushes the held-back text at the end of the stream and closes an unterminated file.
+     */
+    public List<FileStreamEvent> finish() {
+        events = new ArrayList<>();
+        while (step(true)) {
+            // keep going while a step makes progress
+        }
+        if (state == State.FENCED || state == State.UNFENCED) {
+            emitContent(buffer.length());
+            endFile(position);
+        }
+        consume(buffer.length());
+        state = State.OUTSIDE;
+        return events;
+    }
+
+    private boolean step(boolean last) {
+        return switch (state) {
+            case OUTSIDE -> findMarker();
+            case PATH -> readPath(last);
+            case BEFORE_CONTENT -> readContentStart(last);
+            case LANGUAGE -> readLanguage(last);
+            case FENCED -> readContent(true, last);
+            case UNFENCED -> readContent(false, last);
+        };
+    }
+
+    private boolean findMarker() {
+        int marker = indexOfIgnoreCase(FILE_MARKER, 0);
+        if (marker < 0) {
+            consume(Math.max(0, buffer.length() - (FILE_MARKER.length() - 1)));
+            return false;
+        }
+        consume(marker + FILE_MARKER.length());
+        state = State.PATH;
+        return true;
+    }
+
+    private boolean readPath(boolean last) {
+        int newline = buffer.indexOf("\n");
+        int fence = buffer.indexOf(FENCE);
+        int end = newline < 0 ? fence : fence < 0 ? newline : Math.min(newline, fence);
+        if (end < 0) {
+            if (buffer.length() > MAX_PATH_LENGTH) {
+                state = State.OUTSIDE;
+                return true;
+            }
+            if (!last) {
+                return false;
+            }
+            end = buffer.length();
+        }
+        String candidate = buffer.substring(0, end).replace("*", "").replace("`", "").trim();
+        consume(end == newline ? end + 1 : end);
+        if (candidate.isEmpty() || candidate.length() > MAX_PATH_LENGTH) {
+            state = State.OUTSIDE;
+            return true;
+        }
+        path = candidate.replace('\\', '/');
+        state = State.BEFORE_CONTENT;
+        return true;
+    }
+
+    private boolean readContentStart(boolean last) {
+        int start = 0;
+        while (start < buffer.length() && Character.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        consume(start);
+        if (buffer.isEmpty()) {
+            return false;
+        }
+        if (startsWith(FENCE)) {
+            consume(FENCE.length());
+            state = State.LANGUAGE;
+            return true;
+        }
+        if (!last && buffer.length() < FENCE.length() && matchesAt(0, FENCE, buffer.length())) {
+            // "`" or "``": wait to see whether this is a fence
+            return false;
+        }
+        if (regionMatchesIgnoreCase(0, FILE_MARKER)) {
+            // Marker without content; the next file starts right away
+            state = State.OUTSIDE;
+            return true;
+        }
+        startFile(languageDetector.apply(path));
+        state = State.UNFENCED;
+        return true;
+    }
+
+    private boolean readLanguage(boolean last) {
+        int newline = buffer.indexOf("\n");
+        if (newline < 0 && !last && buffer.length() <= MAX_LANGUAGE_LINE) {
+            return false;
+        }
+        int wordEnd = 0;
+        while (wordEnd < buffer.length() && isLanguageChar(buffer.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        String language = buffer.substring(0, wordEnd);
+        // The rest of the fence line (normally nothing) belongs to the content
+        consume(newline >= 0 && newline <= MAX_LANGUAGE_LINE
+                && buffer.substring(wordEnd, newline).isBlank() ? newline + 1 : wordEnd);
+        startFile(language.isEmpty() ? languageDetector.apply(path) : language.toLowerCase());
+        state = State.FENCED;
+        return true;
+    }
+
+    private boolean readContent(boolean fenced, boolean last) {
+        int fence = fenced ? buffer.indexOf(FENCE) : -1;
+        int nextFile = indexOfIgnoreCase(NEXT_FILE_MARKER, 0);
+        int end = fence < 0 ? nextFile : nextFile < 0 ? fence : Math.min(fence, nextFile);
+        if (end >= 0) {
+            boolean closingFence = end == fence;
+            emitContent(end);
+            long contentEnd = position;
+            // Drop the closing fence, or just the newline in front of the next FILE: marker
+            consume(closingFence ? FENCE.length() : 1);
+            endFile(contentEnd);
+            state = State.OUTSIDE;
+            return true;
+        }
+        if (!last) {
+            emitContent(buffer.length() - heldBack(fenced));
+        }
+        return false;
+    }
+
+    /**
+     * Length of the longest buffer suffix that could be the start of a terminator.
+     */
+    private int heldBack(boolean fenced) {
+        int longest = 0;
+        int max = Math.min(buffer.length(), NEXT_FILE_MARKER.length() - 1);
+        for (int length = 1; length <= max; length++) {
+            int from = buffer.length() - length;
+            if (matchesAt(from, NEXT_FILE_MARKER, length)
+                    || (fenced && length < FENCE.length() && matchesAt(from, FENCE, length))) {
+                longest = length;
+            }
+        }
+        return longest;
+    }
+
+    private void startFile(String language) {
+        contentStart = position;
+        events.add(FileStreamEvent.builder()
+                .event(FileStreamEvent.FILE_START)
+                .path(path)
+                .language(language)
+                .offset(contentStart)
+                .build());
+    }
+
+    private void emitContent(int end) {
+        if (end <= 0) {
+            return;
+        }
+        events.add(FileStreamEvent.builder()
+                .event(FileStreamEvent.FILE_CHUNK)
+                .path(path)
+                .content(buffer.substring(0, end))
+                .offset(position)
+                .end(position + end)
+                .build());
+        consume(end);
+    }
+
+    private void endFile(long contentEnd) {
+        events.add(FileStreamEvent.builder()
+                .event(FileStreamEvent.FILE_END)
+                .path(path)
+                .offset(contentStart)
+                .end(contentEnd)
+                .build());
+        path = null;
+    }
+
+    private void consume(int length) {
+        buffer.delete(0, length);
+        position += length;
+    }
+
+    private boolean startsWith(String prefix) {
+        return buffer.length() >= prefix.length() && matchesAt(0, prefix, prefix.length());
+    }
+
+    private boolean regionMatchesIgnoreCase(int from, String marker) {
+        return buffer.length() - from >= marker.length() && matchesAt(from, marker, marker.length());
+    }
+
+    /**
+     * Compares {@code length} buffer characters at {@code from} with the start of {@code marker},
+     * ignoring case.
+     */
+    private boolean matchesAt(int from, String marker, int length) {
+        for (int i = 0; i < length; i++) {
+            if (Character.toUpperCase(buffer.charAt(from + i)) != Character.toUpperCase(marker.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOfIgnoreCase(String marker, int from) {
+        for (int i = from; i <= buffer.length() - marker.length(); i++) {
+            if (matchesAt(i, marker, marker.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isLanguageChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '+' || c == '#' || c == '-' || c == '_';
+    }
+}
@@ -0,0 +1,191 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.FileStreamEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * Formats generated files while the generation is still streaming.
+ * Each file is handed to {@link CodeFormatterService#formatFileContent(String, String)} on a small
+ * dedicated pool as soon as its {@code file-end} event arrives, so on completion the formatted
+ * files only need to be assembled. With a {@link FormattedFileStore} each formatted file is
+ * written out as soon as it is ready and only read back for assembly, so memory does not grow
+ * with the size of the output.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingFormatterService {
+
+    @Value("${generation.formatting.pool-size:2}")
+    private int poolSize;
+
+    @Value("${generation.formatting.queue-capacity:500}")
+    private int queueCapacity;
+
+    private final CodeFormatterService codeFormatterService;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("code-format-");
+        // When the queue is full the streaming thread formats the file itself
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Starts formatting for one stream, keeping the formatted files in memory until they are assembled.
+     * Feed it the stream's file events as they are produced.
+     */
+    public Session newSession() {
+        return new Session(null);
+    }
+
+    /**
+     * Like {@link #newSession()}, but each formatted file is handed to {@code store} as soon as it is ready.
+     */
+    public Session newSession(FormattedFileStore store) {
+        return new Session(store);
+    }
+
+    /**
+     * Durable storage for the formatted files of one stream.
+     */
+    public interface FormattedFileStore {
+
+        /**
+         * Stores the formatted content of the {@code index}-th file. Called on the formatting pool, may block.
+         *
+         * @return false if it could not be stored; the file is then kept in memory
+         */
+        boolean store(int index, String content);
+
+        /**
+         * The stored contents by file index.
+         */
+        Map<Integer, String> readAll();
+    }
+
+    public final class Session {
+        private final FormattedFileStore store;
+        private final List<FormattedFile> files = new ArrayList<>();
+        private FormattedFile current;
+
+        private Session(FormattedFileStore store) {
+            this.store = store;
+        }
+
+        public void accept(List<FileStreamEvent> events) {
+            for (FileStreamEvent event : events) {
+                switch (event.getEvent()) {
+                    case FileStreamEvent.FILE_START ->
+                            current = new FormattedFile(files.size(), event.getPath(), event.getLanguage(), store);
+                    case FileStreamEvent.FILE_CHUNK -> {
+                        if (current != null) {
+                            current.content.append(event.getContent());
+                        }
+                    }
+                    case FileStreamEvent.FILE_END -> {
+                        if (current != null) {
+                            current.submit();
+                            files.add(current);
+                            current = null;
+                        }
+                    }
+                    default -> log.debug("Ignoring file event {}", event.getEvent());
+                }
+            }
+        }
+
+        /**
+         * Joins the formatted files back into the {@code FILE:} / fenced-block layout that
+         * {@link ProjectParserService} reads. Falls back to formatting the raw output as a
+         * whole when it contained no files; only then is {@code rawCode} read.
+         */
+        public String assemble(Supplier<String> rawCode) {
+            if (files.isEmpty()) {
+                return codeFormatterService.formatGeneratedCode(rawCode.get());
+            }
+            List<String> contents = new ArrayList<>(files.size());
+            Map<Integer, String> stored = null;
+            int length = 0;
+            for (FormattedFile file : files) {
+                String content = file.formatted.join();
+                if (content == null) {
+                    if (stored == null) {
+                        stored = store.readAll();
+                    }
+                    content = stored.getOrDefault(file.index, "");
+                }
+                contents.add(content);
+                length += content.length() + file.path.length() + 32;
+            }
+            StringBuilder assembled = new StringBuilder(length);
+            for (int i = 0; i < files.size(); i++) {
+                FormattedFile file = files.get(i);
+                assembled.append("FILE: ").append(file.path).append('\n')
+                        .append("```").append(file.language != null ? file.language : "").append('\n')
+                        .append(contents.get(i)).append('\n')
+                        .append("```\n\n");
+            }
+            return assembled.toString();
+        }
+    }
+
+    private final class FormattedFile {
+        private final int index;
+        private final String path;
+        private final String language;
+        private final FormattedFileStore store;
+        private final StringBuilder content = new StringBuilder();
+        // The formatted content, or null once it is in the store
+        private CompletableFuture<String> formatted;
+
+        private FormattedFile(int index, String path, String language, FormattedFileStore store) {
+            this.index = index;
+            this.path = path;
+            this.language = language;
+            this.store = store;
+        }
+
+        private void submit() {
+            String raw = content.toString();
+            // The formatter has its own copy now
+            content.setLength(0);
+            content.trimToSize();
+            formatted = CompletableFuture.supplyAsync(() -> {
+                String text;
+                try {
+                    text = codeFormatterService.formatFileContent(raw, path).trim();
+                } catch (Exception e) {
+                    log.warn("Could not format {}: {}", path, e.getMessage());
+                    text = raw.trim();
+                }
+                return store != null && store.store(index, text) ? null : text;
+            }, executor);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.generator.generator.service.impl;
+
+import com.generator.generator.dto.GenerationJobResponse;
+import com.generator.generator.dto.GenerationJobStatus;
+import com.generator.generator.dto.ProjectResponse;
+import com.generator.generator.dto.QueueStatus;
+import com.generator.generator.exception.GenerationQueueFullException;
+import com.generator.generator.service.GenerationScheduler;
+import com.generator.generator.service.IGenerationJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs non-streaming generations off the request thread.
+ * Callers get a job id at once and can poll the job or subscribe to its status updates.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationJobService implements IGenerationJobService {
+
+    @Value("${generation.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    private final GenerationScheduler generationScheduler;
+
+    private final Map<String, GenerationJob> jobs = new ConcurrentHashMap<>();
+
+    @Override
+    public GenerationJobResponse submit(Long projectId, String username, String target, int generations,
+                                        Supplier<Mono<ProjectResponse>> work) {
+        GenerationJob job = new GenerationJob(UUID.randomUUID().toString(), projectId, username, target);
+        jobs.put(job.jobId, job);
+        log.info("Submitted {} generation job {} for project {}", target, job.jobId, projectId);
+
+        // A full queue rejects the job during subscribe, so the caller gets the error instead of a failed job
+        AtomicReference<GenerationQueueFullException> rejected = new AtomicReference<>();
+        generationScheduler.schedule(username, generations,
+                        () -> {
+                            job.update(GenerationJobStatus.RUNNING, null, null, null);
+                            return work.get().flux();
+                        },
+                        status -> job.update(GenerationJobStatus.QUEUED, status, null, null))
+                .subscribe(
+                        result -> {
+                            log.info("Generation job {} completed for project {}", job.jobId, projectId);
+                            job.update(GenerationJobStatus.COMPLETED, null, null, result);
+                        },
+                        error -> {
+                            if (error instanceof GenerationQueueFullException queueFull) {
+                                jobs.remove(job.jobId);
+                                rejected.set(queueFull);
+                                return;
+                            }
+                            log.error("Generation job {} failed for project {}: {}", job.jobId, projectId, error.getMessage(), error);
+                            job.update(GenerationJobStatus.FAILED, null, "Failed to generate code: " + error.getMessage(), null);
+                        });
+
+        if (rejected.get() != null) {
+            throw rejected.get();
+        }
+        return job.toResponse();
+    }
+
+    @Override
+    public GenerationJobResponse getJob(String jobId, String username) {
+        return findJob(jobId, username).toResponse();
+    }
+
+    @Override
+    public Flux<GenerationJobResponse> watchJob(String jobId, String username) {
+        return findJob(jobId, username).updates.asFlux();
+    }
+
+    private GenerationJob findJob(String jobId, String username) {
+        GenerationJob job = jobs.get(jobId);
+        if (job == null || !job.username.equals(username)) {
+            throw new RuntimeException("Generation job not found or access denied");
+        }
+        return job;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.status.isFinished() && job.updatedAt.isBefore(cutoff));
+    }
+
+    private static final class GenerationJob {
+        private final String jobId;
+        private final Long projectId;
+        private final String username;
+        private final String target;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final Sinks.Many<GenerationJobResponse> updates = Sinks.many().replay().latest();
+        private volatile GenerationJobStatus status = GenerationJobStatus.QUEUED;
+        private volatile QueueStatus queue;
+        private volatile String error;
+        private volatile ProjectResponse result;
+        private volatile LocalDateTime updatedAt = createdAt;
+
+        private GenerationJob(String jobId, Long projectId, String username, String target) {
+            this.jobId = jobId;
+            this.projectId = projectId;
+            this.username = username;
+            this.target = target;
+            updates.tryEmitNext(toResponse());
+        }
+
+        private synchronized void update(GenerationJobStatus status, QueueStatus queue, String error, ProjectResponse result) {
+            this.status = status;
+            this.queue = queue;
+            this.error = error;
+            this.result = result;
+            this.updatedAt = LocalDateTime.now();
+            updates.tryEmitNext(toResponse());
+            if (status.isFinished()) {
+                updates.tryEmitComplete();
+            }
+        }
+
+        private GenerationJobResponse toResponse() {
+            return GenerationJobResponse.builder()
+                    .jobId(jobId)
+                    .projectId(projectId)
+                    .target(target)
+                    .status(status)
+                    .queue(queue)
+                    .error(error)
+                    .result(result)
+                    .createdAt(createdAt)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+    }
+}
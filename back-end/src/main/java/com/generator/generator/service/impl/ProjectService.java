@@ -1,5 +1,6 @@
 package com.generator.generator.service.impl;
 
+import com.generator.generator.dto.GenerationJobResponse;
 import com.generator.generator.dto.ProjectRequest;
 import com.generator.generator.dto.ProjectResponse;
 import com.generator.generator.entity.Project;
@@ -7,13 +8,20 @@ import com.generator.generator.entity.User;
 import com.generator.generator.repository.ProjectRepository;
 import com.generator.generator.repository.UserRepository;
 import com.generator.generator.service.CodeGenerationService;
+import com.generator.generator.service.GenerationScheduler;
+import com.generator.generator.service.IGenerationJobService;
 import com.generator.generator.service.IProjectService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,9 +29,15 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProjectService implements IProjectService {
 
+    @Value("${ollama.timeout:300}")
+    private Long timeoutSeconds;
+
     private final ProjectRepository projectRepository;
     private final UserRepository userRepository;
     private final CodeGenerationService codeGenerationService;
+    private final IGenerationJobService generationJobService;
+    private final TransactionTemplate transactionTemplate;
+    private final GenerationScheduler generationScheduler;
 
     @Override
     @Transactional
@@ -95,87 +109,82 @@ public class ProjectService implements IProjectService {
     }
 
     @Override
-    @Transactional
-    public ProjectResponse generateCode(Long projectId, String username) {
+    public GenerationJobResponse generateCode(Long projectId, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Project project = projectRepository.findByIdAndUserId(projectId, user.getId())
                 .orElseThrow(() -> new RuntimeException("Project not found or access denied"));
 
-        try {
-            log.info("Starting code generation for project: {}", project.getName());
-            
-            // Generate Spring Boot CRUD code
-            String backendCode = codeGenerationService.generateSpringBootCrud(project.getPrompt());
-            project.setBackendCode(backendCode);
-            log.info("Backend code generated successfully");
-            
-            // Generate Angular TypeScript interfaces
-            String frontendCode = codeGenerationService.generateAngularInterfaces(project.getPrompt());
-            project.setFrontendCode(frontendCode);
-            log.info("Frontend code generated successfully");
-            
-            // Keep legacy field for compatibility
-            project.setGeneratedCode(backendCode + "\n\n// === FRONTEND CODE ===\n\n" + frontendCode);
-            
-            Project updatedProject = projectRepository.save(project);
-            log.info("Code generation completed for project: {}", project.getName());
-            
-            return mapToProjectResponse(updatedProject);
-        } catch (Exception e) {
-            log.error("Error generating code for project {}: {}", project.getName(), e.getMessage(), e);
-            throw new RuntimeException("Failed to generate code: " + e.getMessage(), e);
-        }
+        String prompt = project.getPrompt();
+        log.info("Starting code generation for project: {}", project.getName());
+
+        // Two concurrent Ollama generations, so the job takes two scheduler slots
+        return generationJobService.submit(projectId, username, "all", 2, () ->
+                // Generate Spring Boot CRUD code and Angular TypeScript interfaces concurrently.
+                // zip cancels the other generation as soon as one fails, and both share one deadline.
+                Mono.zip(codeGenerationService.generateSpringBootCrudAsync(prompt),
+                                codeGenerationService.generateAngularInterfacesAsync(prompt))
+                        .timeout(Duration.ofSeconds(timeoutSeconds))
+                        .publishOn(generationScheduler.executor())
+                        .map(codes -> saveGeneratedCode(projectId, saved -> {
+                            saved.setBackendCode(codes.getT1());
+                            saved.setFrontendCode(codes.getT2());
+                            // Keep legacy field for compatibility
+                            saved.setGeneratedCode(codes.getT1() + "\n\n// === FRONTEND CODE ===\n\n" + codes.getT2());
+                        })));
     }
 
     @Override
-    @Transactional
-    public ProjectResponse generateBackendCode(Long projectId, String username) {
+    public GenerationJobResponse generateBackendCode(Long projectId, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Project project = projectRepository.findByIdAndUserId(projectId, user.getId())
                 .orElseThrow(() -> new RuntimeException("Project not found or access denied"));
 
-        try {
-            log.info("Generating Spring Boot CRUD code for project: {}", project.getName());
-            String backendCode = codeGenerationService.generateSpringBootCrud(project.getPrompt());
-            project.setBackendCode(backendCode);
-            project.setGeneratedCode(backendCode); // Update legacy field
-            
-            Project updatedProject = projectRepository.save(project);
-            log.info("Backend code generated successfully for project: {}", project.getName());
-            
-            return mapToProjectResponse(updatedProject);
-        } catch (Exception e) {
-            log.error("Error generating backend code for project {}: {}", project.getName(), e.getMessage(), e);
-            throw new RuntimeException("Failed to generate backend code: " + e.getMessage(), e);
-        }
+        String prompt = project.getPrompt();
+        log.info("Generating Spring Boot CRUD code for project: {}", project.getName());
+
+        return generationJobService.submit(projectId, username, "backend", 1, () ->
+                codeGenerationService.generateSpringBootCrudAsync(prompt)
+                        .publishOn(generationScheduler.executor())
+                        .map(backendCode -> saveGeneratedCode(projectId, saved -> {
+                            saved.setBackendCode(backendCode);
+                            saved.setGeneratedCode(backendCode); // Update legacy field
+                        })));
     }
 
     @Override
-    @Transactional
-    public ProjectResponse generateFrontendCode(Long projectId, String username) {
+    public GenerationJobResponse generateFrontendCode(Long projectId, String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         Project project = projectRepository.findByIdAndUserId(projectId, user.getId())
                 .orElseThrow(() -> new RuntimeException("Project not found or access denied"));
 
-        try {
-            log.info("Generating Angular TypeScript interfaces for project: {}", project.getName());
-            String frontendCode = codeGenerationService.generateAngularInterfaces(project.getPrompt());
-            project.setFrontendCode(frontendCode);
-            
+        String prompt = project.getPrompt();
+        log.info("Generating Angular TypeScript interfaces for project: {}", project.getName());
+
+        return generationJobService.submit(projectId, username, "frontend", 1, () ->
+                codeGenerationService.generateAngularInterfacesAsync(prompt)
+                        .publishOn(generationScheduler.executor())
+                        .map(frontendCode -> saveGeneratedCode(projectId, saved -> saved.setFrontendCode(frontendCode))));
+    }
+
+    /**
+     * Persists generated code in a short transaction once the LLM call has finished,
+     * so no JDBC connection is held while waiting for Ollama.
+     */
+    private ProjectResponse saveGeneratedCode(Long projectId, Consumer<Project> update) {
+        return transactionTemplate.execute(status -> {
+            Project project = projectRepository.findById(projectId)
+                    .orElseThrow(() -> new RuntimeException("Project not found"));
+            update.accept(project);
             Project updatedProject = projectRepository.save(project);
-            log.info("Frontend code generated successfully for project: {}", project.getName());
-            
+            log.info("Generated code saved for project: {}", project.getName());
             return mapToProjectResponse(updatedProject);
-        } catch (Exception e) {
-            log.error("Error generating frontend code for project {}: {}", project.getName(), e.getMessage(), e);
-            throw new RuntimeException("Failed to generate frontend code: " + e.getMessage(), e);
-        }
+        });
     }
 
     private ProjectResponse mapToProjectResponse(Project project) {
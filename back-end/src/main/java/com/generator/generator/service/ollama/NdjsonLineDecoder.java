@@ -0,0 +1,133 @@
+package com.generator.generator.service.ollama;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a stream of network buffers into newline-delimited JSON lines.
+ * Network buffers do not end on line boundaries, so a partial line is carried over to the next
+ * buffer. Bytes are scanned directly for {@code '\n'}: no charset decoding, regex or intermediate
+ * string. One instance per stream; not thread-safe.
+ */
+public class NdjsonLineDecoder {
+
+    private final int maxLineLength;
+    private byte[] partial = new byte[512];
+    private int partialLength;
+
+    public NdjsonLineDecoder(int maxLineLength) {
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Returns the complete, non-blank lines in the buffer (without line terminators) and keeps
+     * any trailing partial line for the next call. The caller still owns and releases the buffer.
+     */
+    public List<byte[]> decode(DataBuffer buffer) {
+        List<byte[]> lines = new ArrayList<>(2);
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                ByteBuffer bytes = iterator.next();
+                int start = bytes.position();
+                int limit = bytes.limit();
+                for (int i = start; i < limit; i++) {
+                    if (bytes.get(i) == '\n') {
+                        addLine(lines, bytes, start, i);
+                        start = i + 1;
+                    }
+                }
+                append(bytes, start, limit);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the last line if the stream did not end with a newline.
+     */
+    public List<byte[]> flush() {
+        List<byte[]> lines = new ArrayList<>(1);
+        if (partialLength > 0) {
+            byte[] line = trim(partial, partialLength);
+            partialLength = 0;
+            if (line != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private void addLine(List<byte[]> lines, ByteBuffer bytes, int start, int end) {
+        byte[] line;
+        if (partialLength == 0) {
+            // Common case: the whole line is inside this buffer
+            int length = trimmedLength(bytes, start, end);
+            if (isBlank(bytes, start, start + length)) {
+                return;
+            }
+            line = new byte[length];
+            bytes.get(start, line);
+        } else {
+            append(bytes, start, end);
+            line = trim(partial, partialLength);
+            partialLength = 0;
+        }
+        if (line != null) {
+            lines.add(line);
+        }
+    }
+
+    private void append(ByteBuffer bytes, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return;
+        }
+        if (partialLength + length > maxLineLength) {
+            partialLength = 0;
+            throw new DataBufferLimitException("Ollama stream line exceeds " + maxLineLength + " bytes");
+        }
+        if (partialLength + length > partial.length) {
+            byte[] grown = new byte[Math.max(partial.length * 2, partialLength + length)];
+            System.arraycopy(partial, 0, grown, 0, partialLength);
+            partial = grown;
+        }
+        bytes.get(start, partial, partialLength, length);
+        partialLength += length;
+    }
+
+    private static int trimmedLength(ByteBuffer bytes, int start, int end) {
+        int last = end;
+        if (last > start && bytes.get(last - 1) == '\r') {
+            last--;
+        }
+        return last - start;
+    }
+
+    private static boolean isBlank(ByteBuffer bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            byte b = bytes.get(i);
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] trim(byte[] source, int length) {
+        int end = length;
+        if (end > 0 && source[end - 1] == '\r') {
+            end--;
+        }
+        ByteBuffer view = ByteBuffer.wrap(source, 0, end);
+        if (isBlank(view, 0, end)) {
+            return null;
+        }
+        byte[] line = new byte[end];
+        System.arraycopy(source, 0, line, 0, end);
+        return line;
+    }
+}
@@ -0,0 +1,87 @@
+package com.generator.generator.service.ollama;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/ollama}: capacity-planning view of the Ollama nodes.
+ * Shows the state of every backend and, per model, generation type and backend, the token
+ * throughput and timings recorded by {@link OllamaMetricsService}.
+ */
+@Component
+@Endpoint(id = "ollama")
+@RequiredArgsConstructor
+public class OllamaActuatorEndpoint {
+
+    private final OllamaBackendRegistry backendRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @ReadOperation
+    public Map<String, Object> ollama() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("backends", backends());
+        result.put("generations", generations());
+        return result;
+    }
+
+    private List<Map<String, Object>> backends() {
+        List<Map<String, Object>> backends = new ArrayList<>();
+        for (OllamaBackend backend : backendRegistry.getBackends()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("url", backend.getUrl());
+            entry.put("healthy", backend.isHealthy());
+            entry.put("circuit", backend.getCircuitBreaker().getState());
+            entry.put("inFlight", backend.getInFlightCount());
+            backends.add(entry);
+        }
+        return backends;
+    }
+
+    private List<Map<String, Object>> generations() {
+        List<Map<String, Object>> generations = new ArrayList<>();
+        for (Timer total : meterRegistry.find(OllamaMetricsService.GENERATION_DURATION).timers()) {
+            String model = total.getId().getTag("model");
+            String type = total.getId().getTag("type");
+            String backend = total.getId().getTag("backend");
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("model", model);
+            entry.put("type", type);
+            entry.put("backend", backend);
+            entry.put("count", total.count());
+            entry.put("totalTimeMeanMs", total.mean(TimeUnit.MILLISECONDS));
+            Timer load = meterRegistry.find(OllamaMetricsService.MODEL_LOAD)
+                    .tags("model", model, "type", type, "backend", backend).timer();
+            entry.put("loadTimeMeanMs", load != null ? load.mean(TimeUnit.MILLISECONDS) : null);
+            entry.put("loadTimeMaxMs", load != null ? load.max(TimeUnit.MILLISECONDS) : null);
+            entry.put("promptTokensPerSecond", summary(OllamaMetricsService.PROMPT_THROUGHPUT, model, type, backend));
+            entry.put("outputTokensPerSecond", summary(OllamaMetricsService.OUTPUT_THROUGHPUT, model, type, backend));
+            generations.add(entry);
+        }
+        return generations;
+    }
+
+    private Map<String, Object> summary(String name, String model, String type, String backend) {
+        DistributionSummary summary = meterRegistry.find(name)
+                .tags("model", model, "type", type, "backend", backend).summary();
+        if (summary == null) {
+            return null;
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("mean", summary.mean());
+        values.put("max", summary.max());
+        values.put("count", summary.count());
+        return values;
+    }
+}
@@ -0,0 +1,49 @@
+package com.generator.generator.service.ollama;
+
+import lombok.Getter;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A single Ollama model server with its own WebClient, circuit breaker and live load counters.
+ */
+@Getter
+public class OllamaBackend {
+
+    private final String url;
+    private final WebClient webClient;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean healthy = true;
+
+    public OllamaBackend(String url, WebClient webClient, CircuitBreaker circuitBreaker) {
+        this.url = url;
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Whether the node can currently take generations: it passes health checks and its breaker is not open.
+     */
+    public boolean isAvailable() {
+        return healthy && !circuitBreaker.isOpen();
+    }
+
+    void markHealthy() {
+        healthy = true;
+    }
+
+    void markUnhealthy() {
+        healthy = false;
+    }
+
+    @Override
+    public String toString() {
+        return url;
+    }
+}
@@ -0,0 +1,307 @@
+package com.generator.generator.service.ollama;
+
+import com.generator.generator.exception.OllamaUnavailableException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.netty.http.client.PrematureCloseException;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Registry of the configured Ollama model servers.
+ * Routes each call to the healthy node with the fewest in-flight requests, skips nodes whose
+ * circuit breaker is open, retries connection failures within a retry budget and can hedge
+ * slow streams on a second node.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OllamaBackendRegistry {
+
+    @Value("${ollama.api.urls:${ollama.api.url:http://localhost:11434}}")
+    private String[] backendUrls;
+
+    @Value("${ollama.health-check.timeout:5}")
+    private long healthCheckTimeoutSeconds;
+
+    @Value("${ollama.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${ollama.circuit-breaker.open-duration:30}")
+    private long openDurationSeconds;
+
+    @Value("${ollama.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${ollama.retry.backoff:500}")
+    private long retryBackoffMillis;
+
+    @Value("${ollama.retry.budget-ratio:0.2}")
+    private double retryBudgetRatio;
+
+    @Value("${ollama.retry.budget-max:10}")
+    private double retryBudgetMax;
+
+    @Value("${ollama.hedge.enabled:false}")
+    private boolean hedgeEnabled;
+
+    @Value("${ollama.hedge.delay:20}")
+    private long hedgeDelaySeconds;
+
+    private final WebClient ollamaWebClient;
+
+    private List<OllamaBackend> backends = List.of();
+    private RetryBudget retryBudget;
+    private final AtomicBoolean healthCheckRunning = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        List<OllamaBackend> nodes = new ArrayList<>();
+        for (String url : backendUrls) {
+            String trimmed = url.trim();
+            if (!trimmed.isEmpty()) {
+                nodes.add(new OllamaBackend(trimmed,
+                        ollamaWebClient.mutate().baseUrl(trimmed).build(),
+                        new CircuitBreaker(failureThreshold, openDurationSeconds * 1000)));
+            }
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("No Ollama backend configured (ollama.api.urls)");
+        }
+        backends = Collections.unmodifiableList(nodes);
+        retryBudget = new RetryBudget(retryBudgetRatio, retryBudgetMax);
+        log.info("Registered {} Ollama backend(s): {}", backends.size(), backends);
+    }
+
+    public List<OllamaBackend> getBackends() {
+        return backends;
+    }
+
+    /**
+     * Runs a streaming call on the least-loaded backend. Connection failures before anything has
+     * been emitted are retried while the retry budget allows. {@code call} applies its own timeouts,
+     * so that a node that does not answer in time counts against its circuit breaker. With hedging enabled, a second node
+     * is started if the first element has not arrived after {@code ollama.hedge.delay}; whichever
+     * node answers first is kept and the other is cancelled.
+     */
+    public <T> Flux<T> stream(Function<OllamaBackend, Flux<T>> call) {
+        if (!hedgeEnabled || backends.size() < 2) {
+            return Flux.defer(() -> {
+                retryBudget.recordRequest();
+                return attempt(call, ConcurrentHashMap.newKeySet(), 1);
+            });
+        }
+        return Flux.defer(() -> {
+            retryBudget.recordRequest();
+            Set<OllamaBackend> tried = ConcurrentHashMap.newKeySet();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Sinks.One<Boolean> primaryFailed = Sinks.one();
+
+            Flux<T> primary = attempt(call, tried, 1)
+                    .doOnError(error -> {
+                        primaryError.set(error);
+                        primaryFailed.tryEmitValue(true);
+                    });
+            Flux<T> hedge = Mono.delay(Duration.ofSeconds(hedgeDelaySeconds))
+                    .takeUntilOther(primaryFailed.asMono())
+                    .flatMapMany(tick -> {
+                        if (tried.size() >= backends.size()) {
+                            return Flux.<T>empty();
+                        }
+                        log.info("No response from Ollama after {}s, hedging on a second backend", hedgeDelaySeconds);
+                        return attempt(call, tried, maxAttempts);
+                    });
+
+            return Flux.firstWithValue(primary, hedge)
+                    .onErrorMap(error -> primaryError.get() != null ? primaryError.get() : error);
+        });
+    }
+
+    /**
+     * Single-value variant of {@link #stream(Function)}. Never hedged, since the first value is the whole response.
+     */
+    public <T> Mono<T> call(Function<OllamaBackend, Mono<T>> call) {
+        return Flux.defer(() -> {
+                    retryBudget.recordRequest();
+                    return attempt(backend -> call.apply(backend).flux(), ConcurrentHashMap.newKeySet(), 1);
+                })
+                .singleOrEmpty();
+    }
+
+    private <T> Flux<T> attempt(Function<OllamaBackend, Flux<T>> call, Set<OllamaBackend> tried, int attempt) {
+        return Flux.defer(() -> {
+            OllamaBackend backend = acquire(tried);
+            if (backend == null) {
+                return Flux.error(new OllamaUnavailableException(
+                        "Ollama is unavailable: all backends are failing, please try again later"));
+            }
+            tried.add(backend);
+            CircuitBreaker breaker = backend.getCircuitBreaker();
+            backend.getInFlight().incrementAndGet();
+            AtomicBoolean started = new AtomicBoolean(false);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+
+            return call.apply(backend)
+                    .doOnNext(item -> {
+                        // Close the breaker as soon as the node answers, not only when a long stream ends
+                        if (started.compareAndSet(false, true)) {
+                            breaker.onSuccess();
+                        }
+                    })
+                    .doOnError(failure::set)
+                    // Every way the call can end resolves the breaker, so a half-open probe is never left pending
+                    .doFinally(signal -> {
+                        backend.getInFlight().decrementAndGet();
+                        resolveBreaker(backend, signal, started.get(), failure.get());
+                    })
+                    .onErrorResume(error -> !started.get() && shouldRetry(error, attempt),
+                            error -> {
+                                log.warn("Ollama backend {} failed to connect ({}), retrying (attempt {}/{})",
+                                        backend.getUrl(), error.getMessage(), attempt + 1, maxAttempts);
+                                return Mono.delay(Duration.ofMillis(retryBackoffMillis * attempt))
+                                        .thenMany(attempt(call, tried, attempt + 1));
+                            });
+        });
+    }
+
+    private void resolveBreaker(OllamaBackend backend, SignalType signal, boolean started, Throwable error) {
+        CircuitBreaker breaker = backend.getCircuitBreaker();
+        switch (signal) {
+            case ON_COMPLETE -> {
+                if (!started) {
+                    breaker.onSuccess();
+                }
+            }
+            case ON_ERROR -> {
+                // A stream that stalls part way (idle timeout) counts too; other errors only before the first item
+                if ((!started && isBackendFailure(error)) || error instanceof TimeoutException) {
+                    breaker.onFailure();
+                    backend.markUnhealthy();
+                } else if (!started) {
+                    // The node answered, e.g. with a 4xx for a missing model: it is up
+                    breaker.onSuccess();
+                }
+            }
+            default -> {
+                if (!started) {
+                    breaker.releaseProbe();
+                }
+            }
+        }
+    }
+
+    private boolean shouldRetry(Throwable error, int attempt) {
+        return attempt < maxAttempts && isConnectionError(error) && retryBudget.tryWithdraw();
+    }
+
+    /**
+     * Picks the least-loaded node whose circuit breaker lets a call through, preferring healthy
+     * nodes that have not been tried yet. Returns {@code null} when every circuit is open.
+     */
+    private OllamaBackend acquire(Set<OllamaBackend> tried) {
+        Comparator<OllamaBackend> preference = Comparator
+                .comparing((OllamaBackend backend) -> tried.contains(backend))
+                // Health information may be stale; still try an unhealthy node rather than failing outright
+                .thenComparing(backend -> !backend.isHealthy())
+                .thenComparingInt(OllamaBackend::getInFlightCount);
+        List<OllamaBackend> candidates = backends.stream()
+                .filter(backend -> backend.getCircuitBreaker().isCallPermitted())
+                .sorted(preference)
+                .toList();
+        for (OllamaBackend backend : candidates) {
+            if (backend.getCircuitBreaker().tryAcquire()) {
+                return backend;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Failures that say the node itself is broken: transport errors (including a connection the
+     * node closed mid-request), timeouts and 5xx responses.
+     */
+    private boolean isBackendFailure(Throwable error) {
+        if (error instanceof WebClientRequestException || error instanceof TimeoutException
+                || error instanceof PrematureCloseException) {
+            return true;
+        }
+        return error instanceof WebClientResponseException responseException
+                && responseException.getStatusCode().is5xxServerError();
+    }
+
+    /**
+     * Only errors where the request never reached Ollama are safe to retry; a timed-out or
+     * failed generation is not retried so it cannot double the load on a struggling node.
+     * A connection closed before the response ({@link PrematureCloseException}) is not among them:
+     * the request may already be running on the node, so it only counts against the breaker.
+     */
+    private boolean isConnectionError(Throwable error) {
+        if (!(error instanceof WebClientRequestException)) {
+            return false;
+        }
+        Throwable cause = error.getCause();
+        return cause instanceof ConnectException
+                || cause instanceof UnknownHostException
+                || cause instanceof NoRouteToHostException;
+    }
+
+    /**
+     * Probes all nodes in parallel without blocking the scheduling thread; a run is skipped while the
+     * previous one is still waiting on a probe.
+     */
+    @Scheduled(fixedDelayString = "${ollama.health-check.interval:15000}",
+            initialDelayString = "${ollama.health-check.interval:15000}")
+    public void checkHealth() {
+        if (!healthCheckRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Flux.fromIterable(backends)
+                .flatMap(backend -> backend.getWebClient().get()
+                        .uri("/api/tags")
+                        .retrieve()
+                        .toBodilessEntity()
+                        .timeout(Duration.ofSeconds(healthCheckTimeoutSeconds))
+                        .map(response -> true)
+                        .onErrorResume(error -> {
+                            log.debug("Health check failed for Ollama backend {}: {}", backend.getUrl(), error.getMessage());
+                            return Mono.just(false);
+                        })
+                        .doOnNext(up -> updateHealth(backend, up)))
+                .doFinally(signal -> healthCheckRunning.set(false))
+                .subscribe();
+    }
+
+    private void updateHealth(OllamaBackend backend, boolean up) {
+        if (up && !backend.isHealthy()) {
+            log.info("Ollama backend {} is back online", backend.getUrl());
+            backend.markHealthy();
+        } else if (!up && backend.isHealthy()) {
+            log.warn("Ollama backend {} is unreachable, removing from rotation", backend.getUrl());
+            backend.markUnhealthy();
+        }
+    }
+}
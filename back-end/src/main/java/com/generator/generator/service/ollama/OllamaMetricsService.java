@@ -0,0 +1,134 @@
+package com.generator.generator.service.ollama;
+
+import com.generator.generator.dto.GenerationType;
+import com.generator.generator.dto.ollama.OllamaOptions;
+import com.generator.generator.dto.ollama.OllamaResponse;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes Ollama runtime statistics as Micrometer meters.
+ * Every meter is tagged with {@code model}, {@code type} (generation type) and {@code backend}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OllamaMetricsService {
+
+    public static final String MODEL_LOAD = "ollama.model.load";
+    public static final String GENERATION_DURATION = "ollama.generation.duration";
+    public static final String PROMPT_THROUGHPUT = "ollama.prompt.throughput";
+    public static final String OUTPUT_THROUGHPUT = "ollama.output.throughput";
+    public static final String PROMPT_TOKENS = "ollama.prompt.tokens";
+    public static final String OUTPUT_TOKENS = "ollama.output.tokens";
+
+    /** Type tag used for the model warm-up requests, which are not generations. */
+    public static final String WARM_UP_TYPE = "warm-up";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Records how long Ollama spent loading the model for a request (load_duration, in nanoseconds).
+     */
+    public void recordModelLoad(String model, String type, OllamaBackend backend, Long loadDurationNanos) {
+        if (loadDurationNanos == null) {
+            return;
+        }
+        Timer.builder(MODEL_LOAD)
+                .description("Time Ollama spent loading the model before generating")
+                .tags(tags(model, type, backend))
+                .register(meterRegistry)
+                .record(loadDurationNanos, TimeUnit.NANOSECONDS);
+        if (loadDurationNanos > TimeUnit.SECONDS.toNanos(1)) {
+            log.info("Cold start on Ollama backend {}: model {} took {} ms to load",
+                    backend.getUrl(), model, TimeUnit.NANOSECONDS.toMillis(loadDurationNanos));
+        }
+    }
+
+    /**
+     * Records the statistics of the final {@code done} message of a generation: load and total
+     * time, prompt and output tokens/s, and token counts. The runtime options are logged alongside.
+     */
+    public void recordGeneration(String model, GenerationType type, OllamaOptions options,
+                                 OllamaBackend backend, OllamaResponse result) {
+        String typeTag = typeTag(type);
+        Tags tags = tags(model, typeTag, backend);
+
+        recordModelLoad(model, typeTag, backend, result.getLoadDuration());
+        if (result.getTotalDuration() != null) {
+            Timer.builder(GENERATION_DURATION)
+                    .description("Total time Ollama spent on a generation, including model load")
+                    .tags(tags)
+                    .register(meterRegistry)
+                    .record(result.getTotalDuration(), TimeUnit.NANOSECONDS);
+        }
+
+        double promptTokensPerSecond = tokensPerSecond(result.getPromptEvalCount(), result.getPromptEvalDuration());
+        double outputTokensPerSecond = tokensPerSecond(result.getEvalCount(), result.getEvalDuration());
+        recordThroughput(PROMPT_THROUGHPUT, "Prompt evaluation speed", tags, promptTokensPerSecond);
+        recordThroughput(OUTPUT_THROUGHPUT, "Output generation speed", tags, outputTokensPerSecond);
+        recordTokens(PROMPT_TOKENS, "Prompt tokens evaluated", tags, result.getPromptEvalCount());
+        recordTokens(OUTPUT_TOKENS, "Output tokens generated", tags, result.getEvalCount());
+
+        Long evalDuration = result.getEvalDuration();
+        log.info("Generation stats [type={}, backend={}, num_ctx={}, num_predict={}, num_thread={}, temperature={}] "
+                        + "prompt_eval_count={}, eval_count={}, eval_duration={} ms, {} tokens/s",
+                type, backend.getUrl(),
+                options != null ? options.getNumCtx() : null,
+                options != null ? options.getNumPredict() : null,
+                options != null ? options.getNumThread() : null,
+                options != null ? options.getTemperature() : null,
+                result.getPromptEvalCount(), result.getEvalCount(),
+                evalDuration != null ? TimeUnit.NANOSECONDS.toMillis(evalDuration) : null,
+                String.format("%.1f", outputTokensPerSecond));
+    }
+
+    /**
+     * Tag value for a generation type, matching the property keys (e.g. {@code backend-crud}).
+     */
+    public static String typeTag(GenerationType type) {
+        return type.name().toLowerCase().replace('_', '-');
+    }
+
+    private void recordThroughput(String name, String description, Tags tags, double tokensPerSecond) {
+        if (tokensPerSecond <= 0) {
+            return;
+        }
+        DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("tokens/s")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95)
+                .register(meterRegistry)
+                .record(tokensPerSecond);
+    }
+
+    private void recordTokens(String name, String description, Tags tags, Integer count) {
+        if (count == null) {
+            return;
+        }
+        DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("tokens")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(count);
+    }
+
+    private Tags tags(String model, String type, OllamaBackend backend) {
+        return Tags.of("model", model != null ? model : "unknown", "type", type, "backend", backend.getUrl());
+    }
+
+    private double tokensPerSecond(Integer count, Long durationNanos) {
+        return count != null && durationNanos != null && durationNanos > 0
+                ? count / (durationNanos / 1_000_000_000.0)
+                : 0;
+    }
+}
@@ -0,0 +1,96 @@
+package com.generator.generator.service.ollama;
+
+import com.generator.generator.dto.ollama.OllamaRequest;
+import com.generator.generator.dto.ollama.OllamaResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Keeps the configured model resident on every Ollama backend.
+ * The model is preloaded when the application starts and pinged on a schedule during business
+ * hours, so users do not pay the model load time on their first request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OllamaModelLifecycleService {
+
+    @Value("${ollama.model.name:qwen2.5-coder}")
+    private String modelName;
+
+    @Value("${ollama.model.keep-alive:30m}")
+    private String keepAlive;
+
+    @Value("${ollama.model.preload:true}")
+    private boolean preload;
+
+    @Value("${ollama.keep-warm.enabled:true}")
+    private boolean keepWarmEnabled;
+
+    @Value("${ollama.timeout:300}")
+    private Long timeoutSeconds;
+
+    private final OllamaBackendRegistry backendRegistry;
+    private final OllamaMetricsService metricsService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadModel() {
+        if (!preload) {
+            return;
+        }
+        log.info("Preloading model {} on {} Ollama backend(s)", modelName, backendRegistry.getBackends().size());
+        warmAll("preload").subscribe();
+    }
+
+    @Scheduled(cron = "${ollama.keep-warm.cron:0 */10 8-19 * * MON-FRI}")
+    public void keepWarm() {
+        if (!keepWarmEnabled) {
+            return;
+        }
+        log.debug("Sending keep-warm ping for model {}", modelName);
+        warmAll("keep-warm").subscribe();
+    }
+
+    private Mono<Void> warmAll(String reason) {
+        return Flux.fromIterable(backendRegistry.getBackends())
+                .flatMap(backend -> warm(backend, reason))
+                .then();
+    }
+
+    /**
+     * A generate request without a prompt makes Ollama load the model and return immediately.
+     */
+    private Mono<OllamaResponse> warm(OllamaBackend backend, String reason) {
+        OllamaRequest request = OllamaRequest.builder()
+                .model(modelName)
+                .stream(false)
+                .keepAlive(keepAlive)
+                .build();
+
+        return backend.getWebClient().post()
+                .uri("/api/generate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(OllamaResponse.class)
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .doOnNext(response -> {
+                    metricsService.recordModelLoad(modelName, OllamaMetricsService.WARM_UP_TYPE, backend, response.getLoadDuration());
+                    log.info("Model {} is loaded on {} ({})", modelName, backend.getUrl(), reason);
+                })
+                .onErrorResume(error -> {
+                    log.warn("Could not {} model {} on {}: {}", reason, modelName, backend.getUrl(), error.getMessage());
+                    return Mono.empty();
+                });
+    }
+}
@@ -0,0 +1,117 @@
+package com.generator.generator.service.ollama;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generator.generator.dto.ollama.OllamaResponse;
+import com.generator.generator.dto.ollama.OllamaStreamChunk;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Extracts {@code response}, {@code done} and {@code error} from Ollama stream lines with one
+ * non-blocking Jackson parser per stream, fed line by line, instead of binding a full
+ * {@link OllamaResponse} for every token. Only the final {@code done} line is bound to
+ * {@link OllamaResponse} for its timing statistics. Not thread-safe.
+ */
+@Slf4j
+public class OllamaStreamParser implements AutoCloseable {
+
+    private final ObjectMapper objectMapper;
+    private JsonParser parser;
+
+    public OllamaStreamParser(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parses one complete NDJSON line. Returns {@code null} if the line is not a JSON object.
+     */
+    public OllamaStreamChunk parse(byte[] line) {
+        try {
+            if (parser == null) {
+                parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+            }
+            ((ByteArrayFeeder) parser.getNonBlockingInputFeeder()).feedInput(line, 0, line.length);
+            OllamaStreamChunk chunk = readObject(line);
+            if (chunk == null) {
+                skipLine(line);
+            } else {
+                finishLine();
+            }
+            return chunk;
+        } catch (IOException e) {
+            skipLine(line);
+            return null;
+        }
+    }
+
+    private OllamaStreamChunk readObject(byte[] line) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        String response = null;
+        boolean done = false;
+        String error = null;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value == JsonToken.NOT_AVAILABLE) {
+                return null;
+            }
+            switch (field) {
+                case "response" -> response = value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                case "done" -> done = value == JsonToken.VALUE_TRUE;
+                case "error" -> error = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            return null;
+        }
+
+        OllamaResponse stats = done ? objectMapper.readValue(line, OllamaResponse.class) : null;
+        return new OllamaStreamChunk(response, done, error, stats);
+    }
+
+    /**
+     * Consumes what follows the object on its line (normally trailing whitespace): the parser only
+     * accepts the next line once all input fed so far has been read. Anything else after the object
+     * cannot be resumed from, so the parser is rebuilt.
+     */
+    private void finishLine() {
+        try {
+            if (parser.nextToken() != JsonToken.NOT_AVAILABLE) {
+                close();
+            }
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * A malformed line leaves the parser mid-document, so it is dropped and rebuilt on the next line.
+     */
+    private void skipLine(byte[] line) {
+        log.debug("Skipping unparseable Ollama stream line: {}",
+                new String(line, 0, Math.min(200, line.length), StandardCharsets.UTF_8));
+        close();
+    }
+
+    @Override
+    public void close() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                log.debug("Could not close Ollama stream parser: {}", e.getMessage());
+            }
+            parser = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.generator.generator.service.ollama;
+
+/**
+ * Token bucket limiting retries to a fraction of the request volume.
+ * Each request deposits {@code ratio} tokens and each retry withdraws one, so during an outage
+ * retries cannot multiply the load on the model servers.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private double tokens;
+
+    public RetryBudget(double ratio, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = maxTokens;
+        this.tokens = maxTokens;
+    }
+
+    public synchronized void recordRequest() {
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    public synchronized boolean tryWithdraw() {
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.dto.FileStreamEvent;
+import com.generator.generator.dto.GenerationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+
+/**
+ * Bounded per-client buffer between a generation session and one SSE connection.
+ * Events are only handed on as the connection requests them (Spring MVC writes one event at a
+ * time on its async executor), so the threads that publish events never wait on a client.
+ * While a client falls behind, its pending {@code code-chunk} events are merged into one, and so
+ * are the adjacent {@code file-chunk} ranges of one file; a merged event moves to the end of the
+ * queue so event ids stay in order (file events locate content by offset, so they do not depend
+ * on the code arriving first). If its buffer still overflows, its stream is completed and the
+ * client resumes with {@code Last-Event-ID}.
+ */
+@Component
+@Slf4j
+public class ClientEventBuffer {
+
+    private static final String CODE_CHUNK = "code-chunk";
+
+    @Value("${streaming.client-buffer.max-events:256}")
+    private int maxEvents;
+
+    @Value("${streaming.client-buffer.max-chars:1048576}")
+    private int maxChars;
+
+    public Flux<GenerationEvent> buffer(Flux<GenerationEvent> events) {
+        return Flux.create(sink -> {
+            Client client = new Client(sink);
+            Disposable upstream = events.subscribe(client::offer, error -> client.complete(), client::complete);
+            sink.onRequest(client::request);
+            sink.onDispose(upstream::dispose);
+        });
+    }
+
+    private final class Client {
+        private final FluxSink<GenerationEvent> sink;
+        private final Deque<GenerationEvent> pending = new ArrayDeque<>();
+        // The pending code-chunk and file-chunk that later chunks are merged into
+        private GenerationEvent pendingCode;
+        private GenerationEvent pendingFileChunk;
+        private int pendingChars;
+        private long requested;
+        private boolean completed;
+        private boolean overflowed;
+        private boolean done;
+
+        private Client(FluxSink<GenerationEvent> sink) {
+            this.sink = sink;
+        }
+
+        synchronized void offer(GenerationEvent event) {
+            if (done || overflowed || completed) {
+                return;
+            }
+            if (CODE_CHUNK.equals(event.getName()) && pendingCode != null) {
+                pending.remove(pendingCode);
+                pendingCode = new GenerationEvent(event.getId(), event.getSequence(), CODE_CHUNK,
+                        (String) pendingCode.getData() + event.getData());
+                pending.addLast(pendingCode);
+            } else if (continuesPendingFileChunk(event)) {
+                pending.remove(pendingFileChunk);
+                FileStreamEvent range = (FileStreamEvent) pendingFileChunk.getData();
+                pendingFileChunk = new GenerationEvent(event.getId(), event.getSequence(), FileStreamEvent.FILE_CHUNK,
+                        FileStreamEvent.builder()
+                                .path(range.getPath())
+                                .offset(range.getOffset())
+                                .end(((FileStreamEvent) event.getData()).getEnd())
+                                .build());
+                pending.addLast(pendingFileChunk);
+            } else {
+                pending.addLast(event);
+                if (CODE_CHUNK.equals(event.getName())) {
+                    pendingCode = event;
+                } else if (FileStreamEvent.FILE_CHUNK.equals(event.getName())) {
+                    pendingFileChunk = event;
+                }
+            }
+            pendingChars += length(event);
+
+            if (pending.size() > maxEvents || pendingChars > maxChars) {
+                log.warn("SSE client too slow ({} events, {} chars pending), closing its stream",
+                        pending.size(), pendingChars);
+                pending.clear();
+                pendingCode = null;
+                pendingFileChunk = null;
+                pendingChars = 0;
+                overflowed = true;
+            }
+            drain();
+        }
+
+        private boolean continuesPendingFileChunk(GenerationEvent event) {
+            if (pendingFileChunk == null || !FileStreamEvent.FILE_CHUNK.equals(event.getName())) {
+                return false;
+            }
+            FileStreamEvent previous = (FileStreamEvent) pendingFileChunk.getData();
+            FileStreamEvent next = (FileStreamEvent) event.getData();
+            return Objects.equals(previous.getPath(), next.getPath()) && Objects.equals(previous.getEnd(), next.getOffset());
+        }
+
+        synchronized void request(long n) {
+            requested = requested + n < 0 ? Long.MAX_VALUE : requested + n;
+            drain();
+        }
+
+        synchronized void complete() {
+            completed = true;
+            drain();
+        }
+
+        private void drain() {
+            while (requested > 0 && !pending.isEmpty()) {
+                GenerationEvent event = pending.pollFirst();
+                if (event == pendingCode) {
+                    pendingCode = null;
+                } else if (event == pendingFileChunk) {
+                    pendingFileChunk = null;
+                }
+                pendingChars -= length(event);
+                requested--;
+                sink.next(event);
+            }
+            if (pending.isEmpty() && (completed || overflowed) && !done) {
+                done = true;
+                // After an overflow too: a normal end makes EventSource reconnect and resume
+                sink.complete();
+            }
+        }
+    }
+
+    private static int length(GenerationEvent event) {
+        return event.getData() instanceof String text ? text.length() : 0;
+    }
+}
@@ -0,0 +1,254 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.entity.GenerationChunk;
+import com.generator.generator.repository.GenerationChunkRepository;
+import com.generator.generator.service.StreamingFormatterService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes the raw output of project generations to the {@code generation_chunks} table while it
+ * streams, so a crash, deploy or timeout loses at most the last checkpoint interval.
+ * Chunks are written in order on a small dedicated pool; the stream's threads never wait on the
+ * database. Each written chunk is reported back, so the session can release that code from memory.
+ * The formatted files of the generation are stored in the same table, under the target
+ * {@code <target>-formatted} with the file index as sequence, until the project is saved.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationCheckpointService {
+
+    private static final String FORMATTED_SUFFIX = "-formatted";
+
+    @Value("${generation.checkpoint.chars:8192}")
+    private int checkpointChars;
+
+    @Value("${generation.checkpoint.interval-seconds:5}")
+    private long checkpointIntervalSeconds;
+
+    @Value("${generation.checkpoint.pool-size:2}")
+    private int poolSize;
+
+    @Value("${generation.checkpoint.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${generation.checkpoint.retention-hours:24}")
+    private long retentionHours;
+
+    private final GenerationChunkRepository generationChunkRepository;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("checkpoint-");
+        // When the queue is full the streaming thread writes the checkpoint itself rather than dropping it
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Starts checkpointing one generation of a project's {@code target} ("backend" or "frontend").
+     *
+     * @param onStored receives the length of output stored so far, after each checkpoint is written
+     */
+    public Checkpointer open(String generationId, Long projectId, String target, LongConsumer onStored) {
+        return new Checkpointer(generationId, projectId, target, onStored);
+    }
+
+    /**
+     * The raw output of the most recent generation of a project's {@code target} that was not saved,
+     * e.g. because the server stopped or the generation failed part way.
+     */
+    public Optional<String> findPartial(Long projectId, String target) {
+        return generationChunkRepository.findFirstByProjectIdAndTargetOrderByCreatedAtDesc(projectId, target)
+                .filter(chunk -> !Boolean.TRUE.equals(chunk.getSaved()))
+                .map(chunk -> read(chunk.getGenerationId(), target, Long.MAX_VALUE));
+    }
+
+    /**
+     * The first {@code length} characters of a generation's stored output.
+     */
+    private String read(String generationId, String target, long length) {
+        List<GenerationChunk> chunks =
+                generationChunkRepository.findByGenerationIdAndTargetOrderBySequenceAsc(generationId, target);
+        StringBuilder code = new StringBuilder((int) Math.min(length,
+                chunks.stream().mapToLong(chunk -> chunk.getContent().length()).sum()));
+        for (GenerationChunk chunk : chunks) {
+            if (code.length() >= length) {
+                break;
+            }
+            String content = chunk.getContent();
+            code.append(content, 0, (int) Math.min(content.length(), length - code.length()));
+        }
+        return code.toString();
+    }
+
+    /**
+     * Deletes the checkpoints of generations that were never completed, once they are too old to be worth recovering.
+     */
+    @Scheduled(fixedDelay = 3600000)
+    public void evictStaleCheckpoints() {
+        int deleted = generationChunkRepository.deleteOlderThan(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Deleted {} stale generation checkpoints", deleted);
+        }
+    }
+
+    public final class Checkpointer implements StreamingFormatterService.FormattedFileStore {
+        private final String generationId;
+        private final Long projectId;
+        private final String target;
+        private final LongConsumer onStored;
+        private final StringBuilder pending = new StringBuilder();
+        private CompletableFuture<Void> writes = CompletableFuture.completedFuture(null);
+        private int sequence;
+        private long checkpointed;
+        private volatile boolean failed;
+        private long lastCheckpointNanos = System.nanoTime();
+
+        private Checkpointer(String generationId, Long projectId, String target, LongConsumer onStored) {
+            this.generationId = generationId;
+            this.projectId = projectId;
+            this.target = target;
+            this.onStored = onStored;
+        }
+
+        /**
+         * Buffers a piece of output and writes a checkpoint once enough output or time has accumulated.
+         */
+        public synchronized void append(String chunk) {
+            pending.append(chunk);
+            if (pending.length() >= checkpointChars
+                    || System.nanoTime() - lastCheckpointNanos >= TimeUnit.SECONDS.toNanos(checkpointIntervalSeconds)) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes whatever is buffered as a checkpoint, e.g. when the generation fails or is cancelled.
+         */
+        public synchronized void flush() {
+            lastCheckpointNanos = System.nanoTime();
+            if (pending.isEmpty()) {
+                return;
+            }
+            GenerationChunk chunk = GenerationChunk.builder()
+                    .generationId(generationId)
+                    .projectId(projectId)
+                    .target(target)
+                    .sequence(sequence++)
+                    .content(pending.toString())
+                    .build();
+            pending.setLength(0);
+            checkpointed += chunk.getContent().length();
+            long stored = checkpointed;
+            // One after the other, so what is stored is always a prefix of the output
+            writes = writes.thenRunAsync(() -> {
+                save(chunk);
+                // After a lost chunk nothing further is released: the session keeps the rest in memory
+                if (!failed) {
+                    onStored.accept(stored);
+                }
+            }, executor);
+        }
+
+        private void save(GenerationChunk chunk) {
+            try {
+                generationChunkRepository.save(chunk);
+            } catch (Exception e) {
+                failed = true;
+                log.error("Could not checkpoint generation {} (chunk {}): {}",
+                        generationId, chunk.getSequence(), e.getMessage());
+            }
+        }
+
+        /**
+         * Writes the last checkpoint and waits for all of them. Blocking; call it off the stream's thread.
+         */
+        public void finish() {
+            CompletableFuture<Void> allWrites;
+            synchronized (this) {
+                flush();
+                allWrites = writes;
+            }
+            allWrites.join();
+        }
+
+        /**
+         * The first {@code length} characters of the stored output.
+         */
+        public String read(long length) {
+            return GenerationCheckpointService.this.read(generationId, target, length);
+        }
+
+        @Override
+        public boolean store(int index, String content) {
+            try {
+                generationChunkRepository.save(GenerationChunk.builder()
+                        .generationId(generationId)
+                        .projectId(projectId)
+                        .target(target + FORMATTED_SUFFIX)
+                        .sequence(index)
+                        .content(content)
+                        .build());
+                return true;
+            } catch (Exception e) {
+                log.error("Could not store formatted file {} of generation {}: {}", index, generationId, e.getMessage());
+                return false;
+            }
+        }
+
+        @Override
+        public Map<Integer, String> readAll() {
+            Map<Integer, String> files = new HashMap<>();
+            for (GenerationChunk chunk : generationChunkRepository
+                    .findByGenerationIdAndTargetOrderBySequenceAsc(generationId, target + FORMATTED_SUFFIX)) {
+                files.put(chunk.getSequence(), chunk.getContent());
+            }
+            return files;
+        }
+
+        /**
+         * Marks the checkpoints as saved to the project, so they are no longer offered as partial output.
+         * They can still be read until {@link #discard()}.
+         */
+        public void saved() {
+            generationChunkRepository.markSaved(generationId);
+        }
+
+        /**
+         * Deletes the checkpoints.
+         */
+        public void discard() {
+            generationChunkRepository.deleteByGenerationId(generationId);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.generator.generator.service.stream;
+
+/**
+ * Final step of a streamed generation, e.g. saving the code to its project.
+ */
+@FunctionalInterface
+public interface GenerationCompletion {
+
+    /**
+     * Called once with the complete generated code.
+     *
+     * @return the message of the {@code complete} event
+     */
+    String complete(String code);
+}
@@ -0,0 +1,362 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.dto.FileStreamEvent;
+import com.generator.generator.dto.GenerationEvent;
+import lombok.Getter;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+/**
+ * A running (or recently finished) generation.
+ * Every event gets a sequence number and is kept for replay, so a client that reconnects can pick
+ * up after the last event it received instead of starting a new generation. {@code code-chunk}
+ * and {@code file-chunk} events are kept in a buffer bounded by events and by characters; all
+ * other events (file boundaries, the latest queue position, the terminal event) are few and
+ * always kept.
+ * With durable storage attached ({@link #useDurableCode}), generated code that has been stored is
+ * released from memory and read back from storage when a whole snapshot is needed.
+ */
+public class GenerationSession {
+
+    public static final String CODE_SNAPSHOT = "code-snapshot";
+    private static final String CODE_CHUNK = "code-chunk";
+    private static final String QUEUED = "queued";
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String ownerKey;
+    private final int replayLimit;
+    private final int replayMaxChars;
+    // code-chunk and file-chunk events still in the replay buffer, with the code length at each
+    private final Deque<StreamedEvent> streamed = new ArrayDeque<>();
+    private long streamedChars;
+    // The newest of those events that has left the buffer, and the code length at it
+    private long evictedSequence;
+    private long evictedCodeEnd;
+    // All other events, which are never evicted
+    private final List<GenerationEvent> retained = new ArrayList<>();
+    // One sink per attached client; events reach them through the outbox, outside this session's lock
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Events in sequence order, queued under the lock and emitted by one thread at a time after it
+    private final Queue<GenerationEvent> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger emitting = new AtomicInteger();
+    // Code not yet released to durable storage; the codeOffset characters before it have been
+    private final StringBuilder code = new StringBuilder();
+    private long codeOffset;
+    private LongFunction<String> durableCode;
+    private Runnable onEvict;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private Disposable generation;
+    private int subscribers;
+    private long lastSequence;
+    @Getter
+    private volatile boolean finished;
+    @Getter
+    private volatile Instant finishedAt;
+
+    public GenerationSession(String id, String ownerKey, int replayLimit, int replayMaxChars) {
+        this.id = id;
+        this.ownerKey = ownerKey;
+        this.replayLimit = replayLimit;
+        this.replayMaxChars = replayMaxChars;
+    }
+
+    /**
+     * Claims the right to run this session's generation; true for exactly one caller.
+     */
+    public boolean tryStart() {
+        return started.compareAndSet(false, true);
+    }
+
+    /**
+     * Sets the upstream subscription, so {@link #cancel(String)} can abort the Ollama request.
+     */
+    public void setGeneration(Disposable generation) {
+        boolean alreadyFinished;
+        synchronized (this) {
+            this.generation = generation;
+            alreadyFinished = finished;
+        }
+        // Disposing runs upstream cancel hooks that take their own locks, so never under this one
+        if (alreadyFinished) {
+            generation.dispose();
+        }
+    }
+
+    public synchronized void addSubscriber() {
+        subscribers++;
+    }
+
+    /**
+     * @return the number of subscribers left
+     */
+    public synchronized int removeSubscriber() {
+        return --subscribers;
+    }
+
+    public synchronized int getSubscribers() {
+        return subscribers;
+    }
+
+    /**
+     * Stops the generation (cancelling the upstream Ollama request) and ends the session with an error event.
+     */
+    public void cancel(String reason) {
+        Disposable upstream;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            enqueue("error", reason);
+            markFinished();
+            upstream = generation;
+        }
+        emit();
+        if (upstream != null) {
+            upstream.dispose();
+        }
+    }
+
+    public void publish(String name, Object data) {
+        synchronized (this) {
+            enqueue(name, data);
+        }
+        emit();
+    }
+
+    private void enqueue(String name, Object data) {
+        if (finished) {
+            return;
+        }
+        lastSequence++;
+        GenerationEvent event = new GenerationEvent(id + ":" + lastSequence, lastSequence, name, data);
+        if (CODE_CHUNK.equals(name) || FileStreamEvent.FILE_CHUNK.equals(name)) {
+            streamed.addLast(new StreamedEvent(event, codeOffset + code.length()));
+            streamedChars += length(event);
+            while (!streamed.isEmpty() && (streamed.size() > replayLimit || streamedChars > replayMaxChars)) {
+                StreamedEvent evicted = streamed.pollFirst();
+                streamedChars -= length(evicted.event());
+                evictedSequence = evicted.event().getSequence();
+                evictedCodeEnd = evicted.codeEnd();
+            }
+        } else {
+            if (QUEUED.equals(name)) {
+                // Only the latest queue position matters to a client that catches up
+                retained.removeIf(previous -> QUEUED.equals(previous.getName()));
+            }
+            retained.add(event);
+        }
+        outbox.add(event);
+    }
+
+    /**
+     * Appends generated code and publishes it as a {@code code-chunk} event.
+     */
+    public void appendCode(String chunk) {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            code.append(chunk);
+            enqueue(CODE_CHUNK, chunk);
+        }
+        emit();
+    }
+
+    /**
+     * Hands queued events to the listeners, then completes them once the session has finished.
+     * Runs outside the lock because emitting runs each client's operators inline; whichever thread
+     * finds the outbox busy leaves its events to the thread already emitting, so order is kept.
+     */
+    private void emit() {
+        if (emitting.getAndIncrement() != 0) {
+            return;
+        }
+        do {
+            GenerationEvent event;
+            while ((event = outbox.poll()) != null) {
+                for (Listener listener : listeners) {
+                    // A listener registered meanwhile already got this event from the history
+                    if (event.getSequence() > listener.after()) {
+                        listener.sink().tryEmitNext(event);
+                    }
+                }
+            }
+            if (finished && !listeners.isEmpty()) {
+                List<Listener> done;
+                synchronized (this) {
+                    done = outbox.isEmpty() ? new ArrayList<>(listeners) : List.of();
+                    listeners.removeAll(done);
+                }
+                done.forEach(listener -> listener.sink().tryEmitComplete());
+            }
+        } while (emitting.decrementAndGet() != 0);
+    }
+
+    /**
+     * Attaches durable storage of this session's code: {@code read} returns the first {@code n}
+     * characters that were stored, and {@link #releaseCode(long)} is called as storage catches up.
+     */
+    public synchronized void useDurableCode(LongFunction<String> read) {
+        this.durableCode = read;
+    }
+
+    /**
+     * Drops code up to offset {@code stored} from memory once it is in durable storage.
+     */
+    public synchronized void releaseCode(long stored) {
+        int released = (int) Math.min(code.length(), stored - codeOffset);
+        if (durableCode != null && released > 0) {
+            code.delete(0, released);
+            codeOffset += released;
+        }
+    }
+
+    /**
+     * All code generated so far. Reads the stored part back from durable storage, so it may block.
+     */
+    public String getCode() {
+        long stored;
+        String tail;
+        synchronized (this) {
+            stored = codeOffset;
+            tail = code.toString();
+        }
+        return stored > 0 ? durableCode.apply(stored) + tail : tail;
+    }
+
+    public synchronized long getCodeLength() {
+        return codeOffset + code.length();
+    }
+
+    /**
+     * Runs {@code action} when the registry forgets this session, e.g. to delete its stored code.
+     */
+    public synchronized void onEvict(Runnable action) {
+        this.onEvict = action;
+    }
+
+    void evicted() {
+        Runnable action;
+        synchronized (this) {
+            action = onEvict;
+            onEvict = null;
+        }
+        if (action != null) {
+            action.run();
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void finish() {
+        synchronized (this) {
+            markFinished();
+        }
+        emit();
+    }
+
+    private void markFinished() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        finishedAt = Instant.now();
+    }
+
+    /**
+     * Events after {@code afterSequence}, followed by live events until the generation finishes.
+     * If some of the missed {@code code-chunk} / {@code file-chunk} events have already left the
+     * replay buffer, a single {@code code-snapshot} event with the code up to the newest of them
+     * replaces them; the other missed events are still replayed, in sequence order around it.
+     */
+    public Flux<GenerationEvent> events(long afterSequence) {
+        return Flux.defer(() -> {
+            // Buffers live events from the moment of registration until the client drains them
+            Sinks.Many<GenerationEvent> sink = Sinks.many().unicast().onBackpressureBuffer();
+            Listener listener;
+            List<GenerationEvent> beforeSnapshot = new ArrayList<>();
+            Flux<GenerationEvent> snapshot = Flux.empty();
+            synchronized (this) {
+                long replayFrom = afterSequence;
+                if (afterSequence < evictedSequence) {
+                    for (GenerationEvent event : retained) {
+                        if (event.getSequence() > afterSequence && event.getSequence() < evictedSequence) {
+                            beforeSnapshot.add(event);
+                        }
+                    }
+                    snapshot = snapshot(evictedSequence, evictedCodeEnd);
+                    replayFrom = evictedSequence;
+                }
+                replay(replayFrom, sink);
+                listener = new Listener(sink, lastSequence);
+                if (finished) {
+                    sink.tryEmitComplete();
+                } else {
+                    listeners.add(listener);
+                }
+            }
+            return Flux.fromIterable(beforeSnapshot)
+                    .concatWith(snapshot)
+                    .concatWith(sink.asFlux())
+                    .doFinally(signal -> listeners.remove(listener));
+        });
+    }
+
+    /**
+     * A {@code code-snapshot} of the first {@code length} characters of code. Reading stored code may
+     * block, so it happens on subscription, outside the lock.
+     */
+    private Flux<GenerationEvent> snapshot(long sequence, long length) {
+        long stored = Math.min(codeOffset, length);
+        String tail = code.substring(0, (int) (length - stored));
+        return Flux.defer(() -> Flux.just(new GenerationEvent(id + ":" + sequence, sequence, CODE_SNAPSHOT,
+                stored > 0 ? durableCode.apply(stored) + tail : tail)));
+    }
+
+    /**
+     * Emits the kept events after {@code afterSequence} into {@code sink}, in sequence order.
+     */
+    private void replay(long afterSequence, Sinks.Many<GenerationEvent> sink) {
+        List<GenerationEvent> missed = new ArrayList<>();
+        for (StreamedEvent entry : streamed) {
+            if (entry.event().getSequence() > afterSequence) {
+                missed.add(entry.event());
+            }
+        }
+        for (GenerationEvent event : retained) {
+            if (event.getSequence() > afterSequence) {
+                missed.add(event);
+            }
+        }
+        missed.sort(Comparator.comparingLong(GenerationEvent::getSequence));
+        missed.forEach(sink::tryEmitNext);
+    }
+
+    private record StreamedEvent(GenerationEvent event, long codeEnd) {
+    }
+
+    private record Listener(Sinks.Many<GenerationEvent> sink, long after) {
+    }
+
+    private static int length(GenerationEvent event) {
+        return event.getData() instanceof String text ? text.length() : 0;
+    }
+}
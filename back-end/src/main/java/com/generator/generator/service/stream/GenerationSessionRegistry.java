@@ -0,0 +1,76 @@
+package com.generator.generator.service.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps generation sessions addressable by id while they run and for a while after they finish,
+ * so reconnecting clients can resume them.
+ */
+@Service
+@Slf4j
+public class GenerationSessionRegistry {
+
+    @Value("${generation.sessions.replay-buffer-size:5000}")
+    private int replayBufferSize;
+
+    @Value("${generation.sessions.replay-buffer-chars:1048576}")
+    private int replayBufferChars;
+
+    @Value("${generation.sessions.retention-minutes:10}")
+    private long retentionMinutes;
+
+    private final Map<String, GenerationSession> sessions = new ConcurrentHashMap<>();
+    // Running generations by what they generate (e.g. a project's backend), so watchers can share one
+    private final Map<String, GenerationSession> running = new ConcurrentHashMap<>();
+
+    public GenerationSession create(String ownerKey) {
+        GenerationSession session = new GenerationSession(UUID.randomUUID().toString(), ownerKey,
+                replayBufferSize, replayBufferChars);
+        sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Returns the unfinished session registered under {@code key}, or registers a new one.
+     * Callers use {@link GenerationSession#tryStart()} to find out whether they must run it.
+     */
+    public GenerationSession joinOrCreate(String key, String ownerKey) {
+        return running.compute(key, (k, existing) ->
+                existing != null && !existing.isFinished() ? existing : create(ownerKey));
+    }
+
+    /**
+     * Returns the session if it exists and belongs to {@code ownerKey}, otherwise {@code null}.
+     */
+    public GenerationSession find(String id, String ownerKey) {
+        GenerationSession session = sessions.get(id);
+        return session != null && session.getOwnerKey().equals(ownerKey) ? session : null;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedSessions() {
+        Instant cutoff = Instant.now().minus(retentionMinutes, ChronoUnit.MINUTES);
+        for (Iterator<GenerationSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            GenerationSession session = it.next();
+            if (session.isFinished() && session.getFinishedAt().isBefore(cutoff)) {
+                it.remove();
+                try {
+                    session.evicted();
+                } catch (RuntimeException e) {
+                    log.warn("Cleanup of generation {} failed: {}", session.getId(), e.getMessage());
+                }
+            }
+        }
+        running.values().removeIf(GenerationSession::isFinished);
+    }
+}
@@ -0,0 +1,268 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.dto.FileStreamEvent;
+import com.generator.generator.service.ChunkCoalescer;
+import com.generator.generator.service.GenerationScheduler;
+import com.generator.generator.service.ProjectParserService;
+import com.generator.generator.service.StreamingFileParser;
+import com.generator.generator.service.StreamingFormatterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Runs streamed generations as {@link GenerationSession}s and attaches SSE clients to them.
+ * The generation runs once, independently of its clients; a client that reconnects with
+ * {@code Last-Event-ID} is re-attached to the same session and receives only what it missed.
+ * Clients get a {@code Flux<ServerSentEvent>}, which Spring MVC writes asynchronously without
+ * holding a servlet thread per open stream.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GenerationStreamService {
+
+    @Value("${generation.sessions.abandon-grace-seconds:15}")
+    private long abandonGraceSeconds;
+
+    private final GenerationSessionRegistry sessionRegistry;
+    private final GenerationScheduler generationScheduler;
+    private final ChunkCoalescer chunkCoalescer;
+    private final ProjectParserService projectParserService;
+    private final StreamingFormatterService streamingFormatterService;
+    private final ClientEventBuffer clientEventBuffer;
+    private final SseHeartbeat sseHeartbeat;
+    private final GenerationCheckpointService checkpointService;
+
+    /**
+     * Starts a generation.
+     *
+     * @param ownerKey    user the generation belongs to; only they can resume it
+     * @param generation  the token stream, subscribed once a generation slot is free
+     * @param formatFiles whether files are formatted while streaming; if so, {@code completion}
+     *                    receives the assembled formatted code instead of the raw output
+     * @param completion  final step, e.g. saving the code
+     */
+    public GenerationSession start(String ownerKey, Supplier<Flux<String>> generation,
+                                   boolean formatFiles, GenerationCompletion completion) {
+        GenerationSession session = sessionRegistry.create(ownerKey);
+        run(session, generation, formatFiles, completion, null);
+        return session;
+    }
+
+    /**
+     * Starts generating a project's {@code target} ("backend" or "frontend"), or joins the generation
+     * that is already running for it. Every watcher of the same project then shares one Ollama
+     * generation, and a late joiner first receives the output so far.
+     * The output is checkpointed to the database while it streams (see {@link GenerationCheckpointService});
+     * the session keeps only what is not yet stored in memory, and {@code completion} receives the
+     * assembled formatted code.
+     */
+    public GenerationSession startOrJoinProject(Long projectId, String target, String existingProjectPath,
+                                                String ownerKey, Supplier<Flux<String>> generation,
+                                                GenerationCompletion completion) {
+        String key = "project:" + projectId + ":" + target + ":" + (existingProjectPath != null ? existingProjectPath : "");
+        GenerationSession session = sessionRegistry.joinOrCreate(key, ownerKey);
+        if (session.tryStart()) {
+            GenerationCheckpointService.Checkpointer checkpointer =
+                    checkpointService.open(session.getId(), projectId, target, session::releaseCode);
+            session.useDurableCode(checkpointer::read);
+            run(session, generation, true, completion, checkpointer);
+        } else {
+            log.info("Joining running generation {} for {}", session.getId(), key);
+        }
+        return session;
+    }
+
+    private void run(GenerationSession session, Supplier<Flux<String>> generation, boolean formatFiles,
+                     GenerationCompletion completion, GenerationCheckpointService.Checkpointer checkpointer) {
+        String ownerKey = session.getOwnerKey();
+        StreamingFileParser fileParser = projectParserService.newStreamingParser();
+        StreamingFormatterService.Session formatting = !formatFiles ? null
+                : checkpointer != null ? streamingFormatterService.newSession(checkpointer)
+                : streamingFormatterService.newSession();
+
+        // The generation waits for a free slot; the client receives its queue position meanwhile.
+        // Tokens are batched into fewer code-chunk events
+        Disposable subscription = chunkCoalescer.coalesce(generationScheduler.schedule(ownerKey, generation,
+                        status -> session.publish("queued", status)))
+                // A cancelled generation keeps its partial output too
+                .doOnCancel(() -> {
+                    if (checkpointer != null) {
+                        checkpointer.flush();
+                    }
+                })
+                .subscribe(
+                        chunk -> {
+                            session.appendCode(chunk);
+                            if (checkpointer != null) {
+                                checkpointer.append(chunk);
+                            }
+                            publishFileEvents(session, formatting, fileParser.feed(chunk));
+                        },
+                        error -> {
+                            log.error("Error in generation {}: {}", session.getId(), error.getMessage(), error);
+                            if (checkpointer != null) {
+                                checkpointer.flush();
+                            }
+                            session.publish("error", "Error generating code: " + error.getMessage());
+                            session.finish();
+                        },
+                        () -> completeOnExecutor(session, fileParser, formatting, completion, checkpointer));
+        session.setGeneration(subscription);
+
+        log.info("Started generation {} for user {}", session.getId(), ownerKey);
+    }
+
+    /**
+     * Waiting for formatted files and saving are blocking, so they run on the generation pool
+     * instead of the stream's (Netty or timer) thread.
+     */
+    private void completeOnExecutor(GenerationSession session, StreamingFileParser fileParser,
+                                    StreamingFormatterService.Session formatting, GenerationCompletion completion,
+                                    GenerationCheckpointService.Checkpointer checkpointer) {
+        try {
+            generationScheduler.executor().schedule(() -> complete(session, fileParser, formatting, completion, checkpointer));
+        } catch (RejectedExecutionException e) {
+            log.warn("Generation pool saturated, completing generation {} on the stream thread", session.getId());
+            complete(session, fileParser, formatting, completion, checkpointer);
+        }
+    }
+
+    private void complete(GenerationSession session, StreamingFileParser fileParser,
+                          StreamingFormatterService.Session formatting, GenerationCompletion completion,
+                          GenerationCheckpointService.Checkpointer checkpointer) {
+        try {
+            publishFileEvents(session, formatting, fileParser.finish());
+            if (checkpointer != null) {
+                checkpointer.finish();
+            }
+            long length = session.getCodeLength();
+            log.info("Generation {} completed. Total code length: {} chars", session.getId(), length);
+
+            if (length == 0) {
+                log.warn("Generation {} completed but no code was generated!", session.getId());
+                session.publish("error", "No code was generated. Please check your prompt and Ollama connection.");
+            } else {
+                // Files were formatted while streaming; only assemble them
+                String finalCode = formatting != null ? formatting.assemble(session::getCode) : session.getCode();
+                session.publish("complete", completion.complete(finalCode));
+                if (checkpointer != null) {
+                    // Kept until the session is forgotten: a client resuming late gets its snapshot from them
+                    checkpointer.saved();
+                    session.onEvict(checkpointer::discard);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error completing generation {}: {}", session.getId(), e.getMessage(), e);
+            session.publish("error", "Error completing code generation: " + e.getMessage());
+        } finally {
+            session.finish();
+        }
+    }
+
+    private void publishFileEvents(GenerationSession session, StreamingFormatterService.Session formatting,
+                                   List<FileStreamEvent> events) {
+        if (formatting != null) {
+            formatting.accept(events);
+        }
+        for (FileStreamEvent event : events) {
+            if (FileStreamEvent.FILE_CHUNK.equals(event.getEvent())) {
+                // Clients take file content from the code-chunk events, so a chunk only names its range
+                session.publish(event.getEvent(), FileStreamEvent.builder()
+                        .path(event.getPath())
+                        .offset(event.getOffset())
+                        .end(event.getEnd())
+                        .build());
+            } else {
+                session.publish(event.getEvent(), event);
+            }
+        }
+    }
+
+    /**
+     * Resumes the generation named by {@code lastEventId} if it still exists, otherwise starts a new one.
+     * Answers 204 when a finished generation has nothing left to send, which stops EventSource
+     * from reconnecting.
+     */
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> open(String lastEventId, String ownerKey,
+                                                              Supplier<GenerationSession> newGeneration) {
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            int separator = lastEventId.lastIndexOf(':');
+            GenerationSession session = separator > 0
+                    ? sessionRegistry.find(lastEventId.substring(0, separator), ownerKey)
+                    : null;
+            long afterSequence = separator > 0 ? parseSequence(lastEventId.substring(separator + 1)) : -1;
+            if (session != null && afterSequence >= 0) {
+                if (session.isFinished() && afterSequence >= session.getLastSequence()) {
+                    return ResponseEntity.noContent().build();
+                }
+                log.info("Resuming generation {} after event {}", session.getId(), afterSequence);
+                return ResponseEntity.ok(attach(session, afterSequence));
+            }
+            log.info("Generation for Last-Event-ID {} is no longer available, starting a new one", lastEventId);
+        }
+        return ResponseEntity.ok(attach(newGeneration.get(), 0));
+    }
+
+    /**
+     * A stream holding a single {@code error} event, for requests rejected before a generation starts.
+     */
+    public static ResponseEntity<Flux<ServerSentEvent<Object>>> error(String message) {
+        return ResponseEntity.ok(Flux.just(ServerSentEvent.builder()
+                .event("error")
+                .data((Object) message)
+                .build()));
+    }
+
+    private static long parseSequence(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Flux<ServerSentEvent<Object>> attach(GenerationSession session, long afterSequence) {
+        return clientEventBuffer.buffer(session.events(afterSequence))
+                .map(event -> ServerSentEvent.builder()
+                        .id(event.getId())
+                        .event(event.getName())
+                        .data(event.getData())
+                        .build())
+                // No total duration limit: idle generations time out upstream, dead clients fail a heartbeat write
+                .transform(sseHeartbeat::withHeartbeats)
+                .doOnSubscribe(subscription -> session.addSubscriber())
+                // Runs once however the stream ends: completion, client disconnect or timeout
+                .doFinally(signal -> {
+                    log.info("SSE connection for generation {} ended ({})", session.getId(), signal);
+                    if (session.removeSubscriber() == 0 && !session.isFinished()) {
+                        scheduleAbandonCheck(session);
+                    }
+                });
+    }
+
+    /**
+     * Cancels a generation nobody watches any more, unless a client reconnects within the grace period.
+     * Cancelling aborts the HTTP request to Ollama and frees the generation slot.
+     */
+    private void scheduleAbandonCheck(GenerationSession session) {
+        Mono.delay(Duration.ofSeconds(abandonGraceSeconds)).subscribe(tick -> {
+            if (session.getSubscribers() == 0 && !session.isFinished()) {
+                log.info("Cancelling generation {}: no client connected for {}s", session.getId(), abandonGraceSeconds);
+                session.cancel("Generation cancelled: no client was connected");
+            }
+        });
+    }
+}
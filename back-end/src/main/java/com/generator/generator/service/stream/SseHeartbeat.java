@@ -0,0 +1,36 @@
+package com.generator.generator.service.stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+
+/**
+ * One shared timer that sends an SSE comment to every open stream.
+ * Heartbeats keep idle proxies from closing streams that wait for a slot or a slow first token,
+ * and a heartbeat that cannot be written reveals a client that has gone away.
+ */
+@Component
+public class SseHeartbeat {
+
+    private final Flux<Long> ticks;
+
+    public SseHeartbeat(@Value("${streaming.heartbeat-seconds:15}") long heartbeatSeconds) {
+        this.ticks = Flux.interval(Duration.ofSeconds(heartbeatSeconds)).share();
+    }
+
+    /**
+     * Adds heartbeat comments to {@code events} until it terminates.
+     * A heartbeat is skipped when the client is still busy with the previous event: the merge
+     * prefetches one element per source, so at most one heartbeat waits for the client and
+     * further ticks are dropped.
+     */
+    public <T> Flux<ServerSentEvent<T>> withHeartbeats(Flux<ServerSentEvent<T>> events) {
+        return events.publish(shared -> Flux.merge(1, shared,
+                ticks.onBackpressureDrop()
+                        .map(tick -> ServerSentEvent.<T>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.then())));
+    }
+}
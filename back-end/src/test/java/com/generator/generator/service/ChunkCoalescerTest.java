@@ -0,0 +1,78 @@
+package com.generator.generator.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ChunkCoalescerTest {
+
+    private ChunkCoalescer coalescer(boolean enabled, long windowMillis, int maxChars) {
+        ChunkCoalescer coalescer = new ChunkCoalescer();
+        ReflectionTestUtils.setField(coalescer, "enabled", enabled);
+        ReflectionTestUtils.setField(coalescer, "windowMillis", windowMillis);
+        ReflectionTestUtils.setField(coalescer, "maxChars", maxChars);
+        return coalescer;
+    }
+
+    @Test
+    void sendsTheFirstChunkAtOnceAndBatchesTheBurstAfterIt() {
+        List<String> tokens = IntStream.range(0, 100).mapToObj(i -> "t" + i + " ").toList();
+        List<String> batches = coalescer(true, 10_000, 1_000_000).coalesce(Flux.fromIterable(tokens))
+                .collectList().block();
+
+        assertEquals(List.of("t0 ", String.join("", tokens.subList(1, tokens.size()))), batches);
+    }
+
+    @Test
+    void cutsABatchAtMaxChars() {
+        List<String> batches = coalescer(true, 10_000, 10).coalesce(Flux.just("a", "bbbbb", "ccccc", "dd", "e"))
+                .collectList().block();
+
+        assertEquals(List.of("a", "bbbbbccccc", "dde"), batches);
+    }
+
+    @Test
+    void flushesAfterTheWindow() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> received = new CopyOnWriteArrayList<>();
+        coalescer(true, 20, 1_000_000).coalesce(upstream.asFlux()).subscribe(received::add);
+
+        upstream.tryEmitNext("a");
+        upstream.tryEmitNext("b");
+        upstream.tryEmitNext("c");
+        assertEquals(List.of("a"), received);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (received.size() < 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(List.of("a", "bc"), received);
+        upstream.tryEmitComplete();
+    }
+
+    @Test
+    void sendsPendingChunksBeforeAnError() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        Flux<String> failing = Flux.just("a", "b", "c").concatWith(Flux.error(new IllegalStateException("boom")));
+
+        assertThrows(IllegalStateException.class,
+                () -> coalescer(true, 10_000, 1_000_000).coalesce(failing).doOnNext(received::add).blockLast());
+        assertEquals(List.of("a", "bc"), received);
+    }
+
+    @Test
+    void passesChunksThroughWhenDisabled() {
+        Flux<String> chunks = Flux.just("a", "b");
+        assertSame(chunks, coalescer(false, 10_000, 10).coalesce(chunks));
+    }
+}
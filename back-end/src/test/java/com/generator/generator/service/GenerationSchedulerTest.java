@@ -0,0 +1,148 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.QueueStatus;
+import com.generator.generator.exception.GenerationQueueFullException;
+import com.generator.generator.service.ollama.CircuitBreaker;
+import com.generator.generator.service.ollama.OllamaBackend;
+import com.generator.generator.service.ollama.OllamaBackendRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GenerationSchedulerTest {
+
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final Map<String, Sinks.Empty<Void>> running = new ConcurrentHashMap<>();
+    private final Map<String, List<QueueStatus>> positions = new ConcurrentHashMap<>();
+    private final List<OllamaBackend> backends = new ArrayList<>();
+    private GenerationScheduler scheduler;
+
+    private void start(int backendCount, int maxConcurrentPerBackend, int maxQueueSize) {
+        IntStream.range(0, backendCount).forEach(i ->
+                backends.add(new OllamaBackend("http://ollama-" + i, null, new CircuitBreaker(1, 60_000))));
+        OllamaBackendRegistry registry = mock(OllamaBackendRegistry.class);
+        when(registry.getBackends()).thenReturn(backends);
+
+        scheduler = new GenerationScheduler(registry);
+        ReflectionTestUtils.setField(scheduler, "maxConcurrentPerBackend", maxConcurrentPerBackend);
+        ReflectionTestUtils.setField(scheduler, "maxQueueSize", maxQueueSize);
+        ReflectionTestUtils.setField(scheduler, "initialDurationEstimateSeconds", 120L);
+        ReflectionTestUtils.setField(scheduler, "executorPoolSize", 4);
+        ReflectionTestUtils.setField(scheduler, "executorQueueCapacity", 100);
+        scheduler.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Schedules a generation that runs until {@link #end(String)} is called.
+     */
+    private Flux<Void> submit(String user, String name) {
+        Sinks.Empty<Void> generation = Sinks.empty();
+        running.put(name, generation);
+        Flux<Void> scheduled = scheduler.schedule(user,
+                () -> Flux.defer(() -> {
+                    started.add(name);
+                    return generation.asMono().flux();
+                }),
+                status -> positions.computeIfAbsent(name, key -> new CopyOnWriteArrayList<>()).add(status));
+        scheduled.subscribe(item -> { }, error -> { });
+        return scheduled;
+    }
+
+    private void end(String name) {
+        running.get(name).tryEmitEmpty();
+    }
+
+    private void awaitStarted(String... names) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (started.size() < names.length && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(List.of(names), started);
+    }
+
+    @Test
+    void admitsWaitingUsersRoundRobin() {
+        start(1, 1, 10);
+        submit("alice", "a1");
+        awaitStarted("a1");
+        submit("alice", "a2");
+        submit("alice", "a3");
+        submit("bob", "b1");
+
+        end("a1");
+        awaitStarted("a1", "a2");
+        end("a2");
+        // Bob's only request goes before Alice's second queued one
+        awaitStarted("a1", "a2", "b1");
+        end("b1");
+        awaitStarted("a1", "a2", "b1", "a3");
+    }
+
+    @Test
+    void rejectsRequestsWhenTheQueueIsFull() {
+        start(1, 1, 1);
+        submit("alice", "a1");
+        awaitStarted("a1");
+        submit("bob", "b1");
+
+        Flux<Void> rejected = submit("carol", "c1");
+
+        GenerationQueueFullException full = assertThrows(GenerationQueueFullException.class,
+                () -> rejected.blockLast(Duration.ofSeconds(5)));
+        // a1 has only just started, so a slot is expected after about one average generation
+        assertTrue(full.getRetryAfterSeconds() > 100 && full.getRetryAfterSeconds() <= 120,
+                "Retry-After " + full.getRetryAfterSeconds());
+    }
+
+    @Test
+    void estimatesStartFromTheRemainingTimeOfRunningGenerations() {
+        start(1, 1, 10);
+        submit("alice", "a1");
+        awaitStarted("a1");
+        submit("bob", "b1");
+        submit("carol", "c1");
+
+        List<QueueStatus> carol = positions.get("c1");
+        QueueStatus latest = carol.get(carol.size() - 1);
+        assertEquals(2, latest.getPosition());
+        // The rest of a1, then an average generation for b1
+        assertTrue(latest.getEstimatedStartSeconds() > 220 && latest.getEstimatedStartSeconds() <= 240,
+                "estimate " + latest.getEstimatedStartSeconds());
+    }
+
+    @Test
+    void onlyCountsBackendsWhoseBreakerIsNotOpen() {
+        start(2, 1, 10);
+        backends.get(1).getCircuitBreaker().onFailure();
+
+        submit("alice", "a1");
+        submit("bob", "b1");
+        awaitStarted("a1");
+        assertTrue(positions.containsKey("b1"));
+
+        backends.get(1).getCircuitBreaker().onSuccess();
+        scheduler.rebalance();
+        awaitStarted("a1", "b1");
+    }
+}
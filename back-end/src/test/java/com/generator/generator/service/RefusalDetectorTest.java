@@ -0,0 +1,70 @@
+package com.generator.generator.service;
+
+import com.generator.generator.exception.GenerationRefusedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RefusalDetectorTest {
+
+    private final RefusalDetector detector = new RefusalDetector();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(detector, "refusalPatterns", new String[]{"i'm sorry", "i cannot help", "as an ai"});
+        ReflectionTestUtils.setField(detector, "preludeChars", 60);
+        detector.init();
+    }
+
+    @Test
+    void detectsARefusalSplitAcrossChunks() {
+        assertThrows(GenerationRefusedException.class, () -> guard("I", "'m so", "RRY, but I ", "can", "not do that."));
+    }
+
+    @Test
+    void acceptsTypographicApostrophes() {
+        assertThrows(GenerationRefusedException.class, () -> guard("I’m sorry, no."));
+    }
+
+    @Test
+    void passesChunksThroughUnchanged() {
+        List<String> chunks = List.of("Here is ", "the code:\n", "FILE: src/A.java\n", "class A {}\n");
+        assertEquals(chunks, guard(chunks.toArray(String[]::new)));
+    }
+
+    @Test
+    void allowsARefusalFollowedByFileContent() {
+        assertDoesNotThrow(() -> guard("I'm sorry for the delay. ", "FI", "LE: src/A.java\n", "class A {}"));
+    }
+
+    @Test
+    void ignoresPhrasesAfterFileContentStarts() {
+        assertDoesNotThrow(() -> guard("``", "`java\n// as an", " AI model, I cannot help it\n```"));
+    }
+
+    @Test
+    void onlyScansThePrelude() {
+        assertDoesNotThrow(() -> guard("x".repeat(59), "I'm sorry"));
+    }
+
+    @Test
+    void ignoresPatternsOutsideTheScannedAlphabet() {
+        ReflectionTestUtils.setField(detector, "refusalPatterns", new String[]{"désolé", "i'm sorry"});
+        detector.init();
+
+        // Must not be cut down to a match on "d"
+        assertDoesNotThrow(() -> guard("do this"));
+        assertThrows(GenerationRefusedException.class, () -> guard("I'm sorry, no."));
+    }
+
+    private List<String> guard(String... chunks) {
+        return detector.guard(Flux.just(chunks)).collectList().block();
+    }
+}
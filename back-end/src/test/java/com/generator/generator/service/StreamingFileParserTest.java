@@ -0,0 +1,116 @@
+package com.generator.generator.service;
+
+import com.generator.generator.dto.FileStreamEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StreamingFileParserTest {
+
+    private static final String OUTPUT = """
+            Here is the project.
+
+            FILE: src/main/java/com/example/User.java
+            ```java
+            package com.example;
+
+            public class User {
+                private String name;
+            }
+            ```
+
+            FILE: **src/app/user.ts**
+            ```typescript
+            export interface User {
+              name: string;
+            }
+            ```
+            FILE: README.md
+            Plain text without a fence,
+            ends at the next file.
+            FILE: src/empty.txt
+            ```
+            ```
+            Trailing notes.
+            """;
+
+    @Test
+    void reportsFilesWithTheirLanguages() {
+        List<ParsedFile> files = parse(List.of(OUTPUT));
+
+        assertEquals(List.of("src/main/java/com/example/User.java", "src/app/user.ts", "README.md", "src/empty.txt"),
+                files.stream().map(ParsedFile::path).toList());
+        assertEquals(List.of("java", "typescript", "markdown", "text"),
+                files.stream().map(ParsedFile::language).toList());
+        assertEquals("export interface User {\n  name: string;\n}\n", files.get(1).content());
+        assertEquals("Plain text without a fence,\nends at the next file.", files.get(2).content());
+        assertEquals("", files.get(3).content());
+    }
+
+    @Test
+    void givesTheSameFilesAndOffsetsForAnyChunking() {
+        List<ParsedFile> whole = parse(List.of(OUTPUT));
+        Random random = new Random(42);
+        for (int run = 0; run < 200; run++) {
+            List<String> chunks = new ArrayList<>();
+            for (int i = 0; i < OUTPUT.length(); ) {
+                int length = 1 + random.nextInt(run % 2 == 0 ? 4 : 40);
+                chunks.add(OUTPUT.substring(i, Math.min(OUTPUT.length(), i + length)));
+                i += length;
+            }
+            assertEquals(whole, parse(chunks), "chunks: " + chunks);
+        }
+    }
+
+    @Test
+    void offsetsLocateTheContentInTheWholeOutput() {
+        for (ParsedFile file : parse(List.of(OUTPUT))) {
+            assertEquals(file.content(), OUTPUT.substring((int) file.offset(), (int) file.end()), file.path());
+        }
+    }
+
+    @Test
+    void closesAnUnterminatedFileAtTheEnd() {
+        List<ParsedFile> files = parse(List.of("FILE: A.java\n```java\nclass A {", "}\n``"));
+        assertEquals(1, files.size());
+        assertEquals("class A {}\n``", files.get(0).content());
+    }
+
+    private static List<ParsedFile> parse(List<String> chunks) {
+        StreamingFileParser parser = new StreamingFileParser(path -> path.endsWith(".md") ? "markdown" : "text");
+        List<FileStreamEvent> events = new ArrayList<>();
+        chunks.forEach(chunk -> events.addAll(parser.feed(chunk)));
+        events.addAll(parser.finish());
+
+        List<ParsedFile> files = new ArrayList<>();
+        FileStreamEvent start = null;
+        StringBuilder content = new StringBuilder();
+        for (FileStreamEvent event : events) {
+            switch (event.getEvent()) {
+                case FileStreamEvent.FILE_START -> {
+                    start = event;
+                    content.setLength(0);
+                }
+                case FileStreamEvent.FILE_CHUNK -> {
+                    assertEquals(start.getOffset() + content.length(), event.getOffset());
+                    assertEquals(event.getOffset() + event.getContent().length(), event.getEnd());
+                    content.append(event.getContent());
+                }
+                case FileStreamEvent.FILE_END -> {
+                    assertEquals(start.getOffset(), event.getOffset());
+                    files.add(new ParsedFile(event.getPath(), start.getLanguage(), content.toString(),
+                            event.getOffset(), event.getEnd()));
+                }
+                default -> throw new AssertionError("Unexpected event " + event.getEvent());
+            }
+        }
+        return files;
+    }
+
+    private record ParsedFile(String path, String language, String content, long offset, long end) {
+    }
+}
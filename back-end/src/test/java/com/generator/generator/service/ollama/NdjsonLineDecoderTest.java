@@ -0,0 +1,70 @@
+package com.generator.generator.service.ollama;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NdjsonLineDecoderTest {
+
+    private final NdjsonLineDecoder decoder = new NdjsonLineDecoder(1024);
+
+    @Test
+    void carriesPartialLinesOverToTheNextBuffer() {
+        assertEquals(List.of("{\"response\":\"a\"}"), decode("{\"response\":\"a\"}\n{\"resp"));
+        assertEquals(List.of(), decode("onse\":"));
+        assertEquals(List.of("{\"response\":\"b\"}", "{\"done\":true}"), decode("\"b\"}\n{\"done\":true}\n"));
+    }
+
+    @Test
+    void stripsCarriageReturns() {
+        assertEquals(List.of("{\"a\":1}"), decode("{\"a\":1}\r\n{\"b\":2}\r"));
+        // The \r of the second line arrived in the previous buffer
+        assertEquals(List.of("{\"b\":2}"), decode("\n"));
+    }
+
+    @Test
+    void skipsBlankLines() {
+        assertEquals(List.of("{\"a\":1}", "{\"b\":2}"), decode("\n  \n\r\n{\"a\":1}\n\t\n{\"b\":2}\n"));
+        assertEquals(List.of(), decode("   "));
+        assertEquals(List.of(), decode("\n"));
+        assertEquals(List.of(), flush());
+    }
+
+    @Test
+    void flushReturnsTheUnterminatedLastLine() {
+        assertEquals(List.of(), decode("{\"done\":true}"));
+        assertEquals(List.of("{\"done\":true}"), flush());
+        assertTrue(flush().isEmpty());
+    }
+
+    @Test
+    void rejectsLinesLongerThanTheLimit() {
+        NdjsonLineDecoder small = new NdjsonLineDecoder(8);
+        small.decode(buffer("0123"));
+        assertThrows(DataBufferLimitException.class, () -> small.decode(buffer("456789")));
+    }
+
+    private List<String> decode(String text) {
+        return strings(decoder.decode(buffer(text)));
+    }
+
+    private List<String> flush() {
+        return strings(decoder.flush());
+    }
+
+    private static DataBuffer buffer(String text) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> strings(List<byte[]> lines) {
+        return lines.stream().map(line -> new String(line, StandardCharsets.UTF_8)).toList();
+    }
+}
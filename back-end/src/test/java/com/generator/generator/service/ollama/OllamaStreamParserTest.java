@@ -0,0 +1,67 @@
+package com.generator.generator.service.ollama;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.generator.generator.dto.ollama.OllamaStreamChunk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaStreamParserTest {
+
+    private final OllamaStreamParser parser = new OllamaStreamParser(new ObjectMapper());
+
+    @AfterEach
+    void close() {
+        parser.close();
+    }
+
+    @Test
+    void readsTokensFromConsecutiveLines() {
+        assertEquals("public ", parse("{\"model\":\"m\",\"response\":\"public \",\"done\":false}").getResponse());
+        assertEquals("class", parse("{\"model\":\"m\",\"response\":\"class\",\"done\":false}").getResponse());
+    }
+
+    @Test
+    void keepsParsingAfterTrailingWhitespace() {
+        assertEquals("a", parse("{\"response\":\"a\",\"done\":false}  \t").getResponse());
+        assertEquals("b", parse("{\"response\":\"b\",\"done\":false} ").getResponse());
+        assertEquals("c", parse("{\"response\":\"c\",\"done\":false}").getResponse());
+    }
+
+    @Test
+    void recoversFromTrailingGarbageAndMalformedLines() {
+        assertEquals("a", parse("{\"response\":\"a\",\"done\":false} x").getResponse());
+        assertEquals("b", parse("{\"response\":\"b\",\"done\":false}").getResponse());
+        assertNull(parse("{\"response\":"));
+        assertNull(parse("not json"));
+        assertEquals("c", parse("{\"response\":\"c\",\"done\":false}").getResponse());
+    }
+
+    @Test
+    void skipsUnknownFieldsAndBindsStatsOnTheLastLine() {
+        OllamaStreamChunk token = parse("{\"context\":[1,2,{\"x\":3}],\"response\":\"a\",\"done\":false}");
+        assertEquals("a", token.getResponse());
+        assertFalse(token.isDone());
+        assertNull(token.getStats());
+
+        OllamaStreamChunk last = parse("{\"response\":\"\",\"done\":true,\"eval_count\":10,\"eval_duration\":1000}");
+        assertTrue(last.isDone());
+        assertNotNull(last.getStats());
+    }
+
+    @Test
+    void readsErrors() {
+        assertEquals("model not found", parse("{\"error\":\"model not found\"}").getError());
+    }
+
+    private OllamaStreamChunk parse(String line) {
+        return parser.parse(line.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,44 @@
+package com.generator.generator.service.ollama;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    @Test
+    void startsFullAndRunsOut() {
+        RetryBudget budget = new RetryBudget(0.1, 2);
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+
+    @Test
+    void refillsByTheRatioOfRequests() {
+        RetryBudget budget = new RetryBudget(0.25, 1);
+        budget.tryWithdraw();
+
+        for (int i = 0; i < 3; i++) {
+            budget.recordRequest();
+        }
+        assertFalse(budget.tryWithdraw());
+
+        budget.recordRequest();
+        assertTrue(budget.tryWithdraw());
+    }
+
+    @Test
+    void neverHoldsMoreThanItsMaximum() {
+        RetryBudget budget = new RetryBudget(1, 2);
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+
+        assertTrue(budget.tryWithdraw());
+        assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+    }
+}
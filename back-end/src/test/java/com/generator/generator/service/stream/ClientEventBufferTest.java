@@ -0,0 +1,141 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.dto.FileStreamEvent;
+import com.generator.generator.dto.GenerationEvent;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClientEventBufferTest {
+
+    private final Sinks.Many<GenerationEvent> session = Sinks.many().unicast().onBackpressureBuffer();
+    private final SlowClient client = new SlowClient();
+    private long sequence;
+
+    private void connect(int maxEvents, int maxChars) {
+        ClientEventBuffer buffer = new ClientEventBuffer();
+        ReflectionTestUtils.setField(buffer, "maxEvents", maxEvents);
+        ReflectionTestUtils.setField(buffer, "maxChars", maxChars);
+        buffer.buffer(session.asFlux()).subscribe(client);
+    }
+
+    @Test
+    void passesEventsOnAsTheClientRequestsThem() {
+        connect(16, 1000);
+        publish("queued", null);
+        publish("code-chunk", "a");
+        assertTrue(client.received.isEmpty());
+
+        client.request(1);
+        assertEquals(List.of("queued"), names());
+        client.request(5);
+        publish("code-chunk", "b");
+        assertEquals(List.of("queued", "code-chunk", "code-chunk"), names());
+    }
+
+    @Test
+    void mergesCodeChunksWhileTheClientLags() {
+        connect(16, 1000);
+        publish("code-chunk", "a");
+        publish("file-start", null);
+        publish("code-chunk", "b");
+        publish("file-end", null);
+        publish("code-chunk", "c");
+
+        client.request(10);
+
+        assertEquals(List.of("file-start", "file-end", "code-chunk"), names());
+        GenerationEvent merged = client.received.get(2);
+        assertEquals("abc", merged.getData());
+        assertEquals(5, merged.getSequence());
+        // Event ids still increase, so Last-Event-ID resumes after everything the client has seen
+        assertEquals(List.of(2L, 4L, 5L), client.received.stream().map(GenerationEvent::getSequence).toList());
+    }
+
+    @Test
+    void mergesAdjacentFileChunkRangesOfOneFile() {
+        connect(16, 1000);
+        publish("file-chunk", range("A.java", 0, 5));
+        publish("file-chunk", range("A.java", 5, 9));
+        publish("file-chunk", range("B.java", 20, 30));
+        publish("file-chunk", range("B.java", 30, 32));
+
+        client.request(10);
+
+        assertEquals(List.of(2L, 4L), client.received.stream().map(GenerationEvent::getSequence).toList());
+        assertEquals(range("A.java", 0, 9), client.received.get(0).getData());
+        assertEquals(range("B.java", 20, 32), client.received.get(1).getData());
+    }
+
+    @Test
+    void completesTheStreamWhenTheClientFallsTooFarBehind() {
+        connect(16, 10);
+        publish("code-chunk", "12345");
+        publish("file-start", null);
+        publish("code-chunk", "678901");
+
+        client.request(10);
+
+        assertTrue(client.received.isEmpty());
+        assertTrue(client.completed);
+    }
+
+    @Test
+    void completesAfterTheBufferedEvents() {
+        connect(16, 1000);
+        publish("code-chunk", "a");
+        publish("complete", "done");
+        session.tryEmitComplete();
+        assertFalse(client.completed);
+
+        client.request(10);
+
+        assertEquals(List.of("code-chunk", "complete"), names());
+        assertTrue(client.completed);
+    }
+
+    private void publish(String name, Object data) {
+        sequence++;
+        session.tryEmitNext(new GenerationEvent("g:" + sequence, sequence, name, data));
+    }
+
+    private static FileStreamEvent range(String path, long offset, long end) {
+        return FileStreamEvent.builder().path(path).offset(offset).end(end).build();
+    }
+
+    private List<String> names() {
+        return client.received.stream().map(GenerationEvent::getName).toList();
+    }
+
+    /**
+     * Requests nothing until told to, like an SSE connection whose socket is full.
+     */
+    private static final class SlowClient extends BaseSubscriber<GenerationEvent> {
+        private final List<GenerationEvent> received = new ArrayList<>();
+        private boolean completed;
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            // no initial demand
+        }
+
+        @Override
+        protected void hookOnNext(GenerationEvent event) {
+            received.add(event);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed = true;
+        }
+    }
+}
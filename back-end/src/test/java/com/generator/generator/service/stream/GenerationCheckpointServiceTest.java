@@ -0,0 +1,104 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.entity.GenerationChunk;
+import com.generator.generator.repository.GenerationChunkRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GenerationCheckpointServiceTest {
+
+    private final List<GenerationChunk> table = new CopyOnWriteArrayList<>();
+    private final GenerationChunkRepository repository = mock(GenerationChunkRepository.class);
+    private final GenerationCheckpointService service = new GenerationCheckpointService(repository);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.save(any())).thenAnswer(invocation -> {
+            table.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(repository.findByGenerationIdAndTargetOrderBySequenceAsc(anyString(), anyString()))
+                .thenAnswer(invocation -> table.stream()
+                        .filter(chunk -> chunk.getGenerationId().equals(invocation.getArgument(0))
+                                && chunk.getTarget().equals(invocation.getArgument(1)))
+                        .sorted(Comparator.comparing(GenerationChunk::getSequence))
+                        .toList());
+        ReflectionTestUtils.setField(service, "checkpointChars", 4);
+        ReflectionTestUtils.setField(service, "checkpointIntervalSeconds", 3600L);
+        ReflectionTestUtils.setField(service, "poolSize", 2);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void writesCheckpointsInOrderAndReportsWhatIsStored() {
+        List<Long> stored = new CopyOnWriteArrayList<>();
+        GenerationCheckpointService.Checkpointer checkpointer = service.open("g", 1L, "backend", stored::add);
+
+        checkpointer.append("ab");
+        checkpointer.append("cd");
+        checkpointer.append("ef");
+        checkpointer.finish();
+
+        assertEquals(List.of("abcd", "ef"), table.stream().map(GenerationChunk::getContent).toList());
+        assertEquals(List.of(0, 1), table.stream().map(GenerationChunk::getSequence).toList());
+        assertEquals(List.of(4L, 6L), stored);
+    }
+
+    @Test
+    void readsAPrefixOfTheStoredOutput() {
+        GenerationCheckpointService.Checkpointer checkpointer = service.open("g", 1L, "backend", length -> { });
+        checkpointer.append("abcd");
+        checkpointer.append("efgh");
+        checkpointer.finish();
+
+        assertEquals("abcde", checkpointer.read(5));
+        assertEquals("abcdefgh", checkpointer.read(100));
+    }
+
+    @Test
+    void keepsFormattedFilesApartFromTheRawOutput() {
+        GenerationCheckpointService.Checkpointer checkpointer = service.open("g", 1L, "backend", length -> { });
+        checkpointer.append("raw!");
+        checkpointer.finish();
+
+        assertTrue(checkpointer.store(1, "class B {}"));
+        assertTrue(checkpointer.store(0, "class A {}"));
+
+        assertEquals(Map.of(0, "class A {}", 1, "class B {}"), checkpointer.readAll());
+        assertEquals("raw!", checkpointer.read(100));
+    }
+
+    @Test
+    void offersOnlyUnsavedOutputAsPartial() {
+        GenerationChunk unsaved = GenerationChunk.builder()
+                .generationId("g1").projectId(1L).target("backend").sequence(0).content("partial").build();
+        table.add(unsaved);
+        when(repository.findFirstByProjectIdAndTargetOrderByCreatedAtDesc(1L, "backend"))
+                .thenReturn(Optional.of(unsaved));
+        assertEquals(Optional.of("partial"), service.findPartial(1L, "backend"));
+
+        unsaved.setSaved(true);
+        assertEquals(Optional.empty(), service.findPartial(1L, "backend"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.generator.generator.service.stream;
+
+import com.generator.generator.dto.GenerationEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GenerationSessionTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    // Keeps the last three code-chunk events
+    private final GenerationSession session = new GenerationSession("g", "user", 3, 1000);
+
+    /**
+     * 1 queued, 2 file-start, 3-8 code "c0".."c5", 9 file-end; code-chunks 3-5 leave the buffer.
+     */
+    private void generate() {
+        session.publish("queued", "position 1");
+        session.publish("file-start", "A.java");
+        for (int i = 0; i < 6; i++) {
+            session.appendCode("c" + i);
+        }
+        session.publish("file-end", "A.java");
+    }
+
+    @Test
+    void replaysMissedEventsWhileTheyAreBuffered() {
+        generate();
+
+        List<GenerationEvent> events = session.events(6).take(3).collectList().block(TIMEOUT);
+
+        assertEquals(List.of(7L, 8L, 9L), sequences(events));
+        assertEquals(List.of("c4", "c5", "A.java"), events.stream().map(GenerationEvent::getData).toList());
+    }
+
+    @Test
+    void resumesARunningSessionAfterTheBufferOverflowed() {
+        generate();
+
+        List<GenerationEvent> events = session.events(1).take(6).collectList().block(TIMEOUT);
+
+        assertEquals(List.of("file-start", "code-snapshot", "code-chunk", "code-chunk", "code-chunk", "file-end"),
+                names(events));
+        assertEquals(List.of(2L, 5L, 6L, 7L, 8L, 9L), sequences(events));
+        assertEquals("c0c1c2", events.get(1).getData());
+    }
+
+    @Test
+    void resumesAFinishedSessionWithItsTerminalEvent() {
+        generate();
+        session.publish("complete", "done");
+        session.finish();
+
+        List<GenerationEvent> events = session.events(1).collectList().block(TIMEOUT);
+
+        assertEquals(List.of("file-start", "code-snapshot", "code-chunk", "code-chunk", "code-chunk", "file-end", "complete"),
+                names(events));
+        assertEquals(10L, events.get(events.size() - 1).getSequence());
+    }
+
+    @Test
+    void deliversLiveEventsAfterTheReplay() {
+        generate();
+        List<GenerationEvent> received = new CopyOnWriteArrayList<>();
+        session.events(8).subscribe(received::add);
+
+        session.appendCode("c6");
+        session.publish("complete", "done");
+        session.finish();
+
+        assertEquals(List.of(9L, 10L, 11L), sequences(received));
+    }
+
+    @Test
+    void keepsOnlyTheLatestQueuePosition() {
+        session.publish("queued", "position 2");
+        session.publish("queued", "position 1");
+        session.finish();
+
+        List<GenerationEvent> events = session.events(0).collectList().block(TIMEOUT);
+
+        assertEquals(List.of("position 1"), events.stream().map(GenerationEvent::getData).toList());
+    }
+
+    @Test
+    void readsReleasedCodeBackFromStorageForASnapshot() {
+        StringBuilder storage = new StringBuilder();
+        session.useDurableCode(length -> storage.substring(0, (int) length));
+        for (int i = 0; i < 6; i++) {
+            session.appendCode("c" + i);
+            storage.append("c").append(i);
+            if (i == 3) {
+                session.releaseCode(storage.length());
+            }
+        }
+
+        assertEquals("c0c1c2c3c4c5", session.getCode());
+        GenerationEvent snapshot = session.events(0).blockFirst(TIMEOUT);
+        assertEquals("code-snapshot", snapshot.getName());
+        assertEquals("c0c1c2", snapshot.getData());
+    }
+
+    private static List<String> names(List<GenerationEvent> events) {
+        return events.stream().map(GenerationEvent::getName).toList();
+    }
+
+    private static List<Long> sequences(List<GenerationEvent> events) {
+        return events.stream().map(GenerationEvent::getSequence).toList();
+    }
+}
@@ -0,0 +1,368 @@
+package com.generator.generator.soak;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Opens many concurrent generation streams against a stub Ollama and logs heap, thread count and
+ * latency. A second scenario streams projects: several watchers share each project's generation,
+ * and one client per project disconnects part way and resumes with {@code Last-Event-ID} while the
+ * output is checkpointed. Excluded from the normal build; run it with {@code mvn test -Psoak}
+ * (needs the database from application.properties), e.g.:
+ * <pre>
+ * mvn test -Psoak -Dsoak.streams=5000 -Dsoak.token-delay-ms=500 -Dspring.profiles.active=capacity
+ * </pre>
+ * {@code soak.idle-ms} delays the first token to simulate streams still waiting for the model;
+ * {@code soak.projects} and {@code soak.watchers} size the project scenario.
+ */
+@Tag("soak")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "ollama.model.preload=false",
+        "ollama.keep-warm.enabled=false",
+        "ollama.hedge.enabled=false",
+        "ollama.http.max-connections=100000",
+        "generation.scheduler.max-concurrent-per-backend=100000",
+        "generation.scheduler.max-queue-size=100000",
+        "spring.jpa.show-sql=false"
+})
+class GenerationStreamSoakTest {
+
+    private static final int STREAMS = Integer.getInteger("soak.streams", 2000);
+    private static final int TOKENS = Integer.getInteger("soak.tokens", 50);
+    private static final long TOKEN_DELAY_MILLIS = Long.getLong("soak.token-delay-ms", 200);
+    private static final long IDLE_MILLIS = Long.getLong("soak.idle-ms", 0);
+    private static final int PROJECTS = Integer.getInteger("soak.projects", 50);
+    private static final int WATCHERS = Integer.getInteger("soak.watchers", 4);
+
+    private static StubOllamaServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void ollama(DynamicPropertyRegistry registry) throws IOException {
+        stub = new StubOllamaServer(TOKENS, TOKEN_DELAY_MILLIS, IDLE_MILLIS);
+        registry.add("ollama.api.url", stub::url);
+        registry.add("ollama.api.urls", stub::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void holdsConcurrentGenerationStreams() throws Exception {
+        ExecutorService clientThreads = Executors.newFixedThreadPool(8);
+        HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+        String token = register(client);
+
+        Sampler sampler = new Sampler();
+        sampler.start();
+
+        List<StreamListener> listeners = new ArrayList<>(STREAMS);
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(STREAMS);
+        for (int i = 0; i < STREAMS; i++) {
+            StreamListener listener = new StreamListener();
+            listeners.add(listener);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                            + "/api/generate/backend/stream?token=" + URLEncoder.encode(token, StandardCharsets.UTF_8)
+                            + "&prompt=" + URLEncoder.encode("soak entity " + i, StandardCharsets.UTF_8)))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.fromLineSubscriber(listener)));
+        }
+
+        long expectedMillis = IDLE_MILLIS + TOKENS * TOKEN_DELAY_MILLIS;
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .orTimeout(expectedMillis + 120_000, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> null)
+                .join();
+        sampler.stop();
+
+        long completed = listeners.stream().filter(listener -> listener.completed).count();
+        long[] firstChunk = listeners.stream().filter(listener -> listener.firstChunkMillis >= 0)
+                .mapToLong(listener -> listener.firstChunkMillis).sorted().toArray();
+        long[] total = listeners.stream().filter(listener -> listener.completed)
+                .mapToLong(listener -> listener.totalMillis).sorted().toArray();
+
+        log.info("Generation stream soak: {} streams, {} tokens every {} ms, {} ms idle",
+                STREAMS, TOKENS, TOKEN_DELAY_MILLIS, IDLE_MILLIS);
+        log.info("completed      {} / {}", completed, STREAMS);
+        log.info("peak heap      {} MB", sampler.peakHeapBytes.get() / (1024 * 1024));
+        log.info("peak threads   {} (stub server threads excluded)", sampler.peakThreads.get());
+        log.info("first chunk    p50 {} ms, p95 {} ms, p99 {} ms",
+                percentile(firstChunk, 50), percentile(firstChunk, 95), percentile(firstChunk, 99));
+        log.info("whole stream   p50 {} ms, p95 {} ms, p99 {} ms (ideal {} ms)",
+                percentile(total, 50), percentile(total, 95), percentile(total, 99), expectedMillis);
+
+        clientThreads.shutdownNow();
+        assertEquals(STREAMS, completed, "streams that received a complete event");
+        assertEquals(STREAMS, firstChunk.length, "streams that received code");
+    }
+
+    @Test
+    void sharesCheckpointsAndResumesProjectStreams() throws Exception {
+        ExecutorService clientThreads = Executors.newFixedThreadPool(8);
+        HttpClient client = HttpClient.newBuilder().executor(clientThreads).build();
+        String token = register(client);
+        int generationsBefore = stub.generations();
+
+        List<Long> projectIds = new ArrayList<>(PROJECTS);
+        for (int i = 0; i < PROJECTS; i++) {
+            projectIds.add(createProject(client, token, "soak project " + i));
+        }
+
+        // Per project: watchers that stay to the end, and one client that leaves after its first code-chunk
+        List<StreamListener> watchers = new ArrayList<>();
+        List<StreamListener> leavers = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        for (Long projectId : projectIds) {
+            for (int i = 0; i < WATCHERS; i++) {
+                StreamListener watcher = new StreamListener();
+                watchers.add(watcher);
+                responses.add(openProjectStream(client, token, projectId, null, watcher));
+            }
+            StreamListener leaver = new StreamListener(true);
+            leavers.add(leaver);
+            // Not awaited: a response whose body was cancelled never completes
+            openProjectStream(client, token, projectId, null, leaver);
+        }
+
+        long expectedMillis = IDLE_MILLIS + TOKENS * TOKEN_DELAY_MILLIS;
+        long deadline = System.currentTimeMillis() + expectedMillis + 120_000;
+        List<StreamListener> resumed = new ArrayList<>();
+        for (int i = 0; i < PROJECTS; i++) {
+            StreamListener leaver = leavers.get(i);
+            leaver.left.orTimeout(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS).join();
+            StreamListener resumer = new StreamListener();
+            resumed.add(resumer);
+            responses.add(openProjectStream(client, token, projectIds.get(i), leaver.lastEventId, resumer));
+        }
+
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+                .orTimeout(Math.max(1, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)
+                .exceptionally(error -> null)
+                .join();
+
+        long watchersCompleted = watchers.stream().filter(listener -> listener.completed).count();
+        long resumedCompleted = resumed.stream().filter(listener -> listener.completed).count();
+        int generations = stub.generations() - generationsBefore;
+        log.info("Project stream soak: {} projects, {} watchers each, one resume each", PROJECTS, WATCHERS);
+        log.info("watchers completed  {} / {}", watchersCompleted, watchers.size());
+        log.info("resumes completed   {} / {}", resumedCompleted, resumed.size());
+        log.info("Ollama generations  {} for {} projects", generations, PROJECTS);
+
+        assertEquals(watchers.size(), watchersCompleted, "watchers that received a complete event");
+        assertEquals(PROJECTS, resumedCompleted, "resumed streams that received a complete event");
+        for (int i = 0; i < PROJECTS; i++) {
+            assertTrue(resumed.get(i).firstSequence > sequence(leavers.get(i).lastEventId),
+                    "a resumed stream starts after the last event its client saw");
+        }
+        assertEquals(PROJECTS, generations, "watchers of a project share one generation");
+        for (Long projectId : projectIds) {
+            JsonNode backendCode = get(client, token, "/api/projects/" + projectId).path("backendCode");
+            assertTrue(backendCode.isTextual() && !backendCode.asText().isEmpty(),
+                    "generated code saved to project " + projectId);
+            assertEquals(204, partialStatus(client, token, projectId),
+                    "checkpoints of a saved generation are not offered as partial");
+        }
+        clientThreads.shutdownNow();
+    }
+
+    private CompletableFuture<HttpResponse<Void>> openProjectStream(HttpClient client, String token, Long projectId,
+                                                                    String lastEventId, StreamListener listener) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/api/projects/" + projectId + "/generate/backend/stream?token="
+                        + URLEncoder.encode(token, StandardCharsets.UTF_8)))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.fromLineSubscriber(listener));
+    }
+
+    private long createProject(HttpClient client, String token, String name) throws Exception {
+        String body = "{\"name\":\"" + name + "\",\"prompt\":\"soak entity for " + name + "\"}";
+        HttpResponse<String> response = client.send(authorized(token, "/api/projects")
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(response.body()).get("id").asLong();
+    }
+
+    /**
+     * Status of the partial endpoint, once the checkpoints are marked saved (just after {@code complete} is sent).
+     */
+    private int partialStatus(HttpClient client, String token, Long projectId) throws Exception {
+        int status = -1;
+        for (int attempt = 0; attempt < 50 && status != 204; attempt++) {
+            if (attempt > 0) {
+                Thread.sleep(100);
+            }
+            status = client.send(authorized(token, "/api/projects/" + projectId + "/generate/backend/partial").build(),
+                    HttpResponse.BodyHandlers.discarding()).statusCode();
+        }
+        return status;
+    }
+
+    private JsonNode get(HttpClient client, String token, String path) throws Exception {
+        HttpResponse<String> response = client.send(authorized(token, path).build(), HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(response.body());
+    }
+
+    private HttpRequest.Builder authorized(String token, String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private static long sequence(String eventId) {
+        return Long.parseLong(eventId.substring(eventId.lastIndexOf(':') + 1));
+    }
+
+    private String register(HttpClient client) throws Exception {
+        String username = "soak-" + UUID.randomUUID().toString().substring(0, 8);
+        String body = "{\"username\":\"" + username + "\",\"email\":\"" + username + "@example.com\",\"password\":\"soak-password\"}";
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/register"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new ObjectMapper().readTree(response.body()).get("token").asText();
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Reads one SSE stream line by line and records when the first chunk and the complete event arrived,
+     * and the event ids. A leaving listener disconnects right after its first code-chunk.
+     */
+    private static final class StreamListener implements Flow.Subscriber<String> {
+        private final long startNanos = System.nanoTime();
+        private final boolean leave;
+        private final CompletableFuture<Void> left = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private volatile long firstChunkMillis = -1;
+        private volatile long totalMillis = -1;
+        private volatile boolean completed;
+        private volatile String lastEventId;
+        private volatile long firstSequence = -1;
+
+        StreamListener() {
+            this(false);
+        }
+
+        StreamListener(boolean leave) {
+            this.leave = leave;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (line.startsWith("id:")) {
+                lastEventId = line.substring(3).trim();
+                if (firstSequence < 0) {
+                    firstSequence = sequence(lastEventId);
+                }
+            } else if (firstChunkMillis < 0 && line.startsWith("event:code-chunk")) {
+                firstChunkMillis = elapsedMillis();
+                if (leave) {
+                    subscription.cancel();
+                    left.complete(null);
+                }
+            } else if (line.startsWith("event:complete")) {
+                totalMillis = elapsedMillis();
+                completed = true;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // Counted as not completed
+            left.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            // Nothing to do: completion is the complete event
+            left.completeExceptionally(new IllegalStateException("Stream ended before its first code-chunk"));
+        }
+
+        private long elapsedMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Samples used heap and live threads of this JVM once a second, without the stub server's threads.
+     */
+    private static final class Sampler {
+        private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+        private final AtomicLong peakHeapBytes = new AtomicLong();
+        private final AtomicLong peakThreads = new AtomicLong();
+
+        void start() {
+            timer.scheduleAtFixedRate(this::sample, 0, 1, TimeUnit.SECONDS);
+        }
+
+        void stop() {
+            sample();
+            timer.shutdownNow();
+        }
+
+        private void sample() {
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            long threads = Arrays.stream(ManagementFactory.getThreadMXBean().dumpAllThreads(false, false))
+                    .map(ThreadInfo::getThreadName)
+                    .filter(name -> !name.startsWith(StubOllamaServer.THREAD_PREFIX))
+                    .count();
+            peakHeapBytes.accumulateAndGet(heap, Math::max);
+            peakThreads.accumulateAndGet(threads, Math::max);
+        }
+    }
+}
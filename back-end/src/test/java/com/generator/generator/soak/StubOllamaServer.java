@@ -0,0 +1,99 @@
+package com.generator.generator.soak;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal Ollama stand-in for soak tests: answers {@code /api/tags} and streams a fixed number of
+ * NDJSON tokens from {@code /api/generate}, optionally after an idle period.
+ * Its threads are named {@code stub-ollama-} so they can be left out of thread counts.
+ */
+class StubOllamaServer implements AutoCloseable {
+
+    static final String THREAD_PREFIX = "stub-ollama-";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger generations = new AtomicInteger();
+
+    StubOllamaServer(int tokens, long tokenDelayMillis, long idleBeforeFirstTokenMillis) throws IOException {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, THREAD_PREFIX + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1000);
+        server.setExecutor(executor);
+        server.createContext("/api/tags", exchange -> respond(exchange, "{\"models\":[]}"));
+        server.createContext("/api/generate", exchange -> {
+            generations.incrementAndGet();
+            stream(exchange, tokens, tokenDelayMillis, idleBeforeFirstTokenMillis);
+        });
+        server.start();
+    }
+
+    String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Number of {@code /api/generate} requests received so far.
+     */
+    int generations() {
+        return generations.get();
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void stream(HttpExchange exchange, int tokens, long tokenDelayMillis, long idleMillis) throws IOException {
+        exchange.getRequestBody().readAllBytes();
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            sleep(idleMillis);
+            for (int i = 0; i < tokens; i++) {
+                out.write(("{\"model\":\"stub\",\"response\":\"token" + i + " \",\"done\":false}\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                sleep(tokenDelayMillis);
+            }
+            out.write("{\"model\":\"stub\",\"response\":\"\",\"done\":true,\"eval_count\":1,\"eval_duration\":1}\n"
+                    .getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Client cancelled the generation
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { ProjectStructure } from '../../models/project-file.model';
+import { ProjectFile, ProjectStructure } from '../../models/project-file.model';
 import { environment } from '../../../environments/environment';
 
 @Injectable({
@@ -172,6 +172,14 @@ export class ProjectStructureService {
     
     console.log('Parsed', files.length, 'files from code');
 
+    return this.buildStructure(files);
+  }
+
+  /**
+   * Builds the folder tree for a list of files, e.g. files received as file-start/file-end
+   * events while a generation is streaming.
+   */
+  buildStructure(files: ProjectFile[]): ProjectStructure {
     // Build tree structure
     const root: any = {
       label: 'Project',
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
-import { Observable } from 'rxjs';
-import { Project, ProjectRequest } from '../../models/project.model';
+import { Observable, switchMap, timer, filter, take, map } from 'rxjs';
+import { GenerationJob, Project, ProjectRequest } from '../../models/project.model';
 import { environment } from '../../../environments/environment';
 
 @Injectable({
@@ -9,6 +9,8 @@ import { environment } from '../../../environments/environment';
 })
 export class ProjectService {
   private apiUrl = `${environment.apiUrl}/api/projects`;
+  private jobsUrl = `${environment.apiUrl}/api/jobs`;
+  private jobPollIntervalMs = 2000;
 
   constructor(private http: HttpClient) {}
 
@@ -33,15 +35,36 @@ export class ProjectService {
   }
 
   generateCode(id: number): Observable<Project> {
-    return this.http.post<Project>(`${this.apiUrl}/${id}/generate`, {});
+    return this.runJob(this.http.post<GenerationJob>(`${this.apiUrl}/${id}/generate`, {}));
   }
 
   generateBackendCode(id: number): Observable<Project> {
-    return this.http.post<Project>(`${this.apiUrl}/${id}/generate/backend`, {});
+    return this.runJob(this.http.post<GenerationJob>(`${this.apiUrl}/${id}/generate/backend`, {}));
   }
 
   generateFrontendCode(id: number): Observable<Project> {
-    return this.http.post<Project>(`${this.apiUrl}/${id}/generate/frontend`, {});
+    return this.runJob(this.http.post<GenerationJob>(`${this.apiUrl}/${id}/generate/frontend`, {}));
+  }
+
+  getJob(jobId: string): Observable<GenerationJob> {
+    return this.http.get<GenerationJob>(`${this.jobsUrl}/${jobId}`);
+  }
+
+  // Generation endpoints return a job at once; poll it until the project is ready
+  private runJob(submit: Observable<GenerationJob>): Observable<Project> {
+    return submit.pipe(
+      switchMap(job => timer(this.jobPollIntervalMs, this.jobPollIntervalMs).pipe(
+        switchMap(() => this.getJob(job.jobId))
+      )),
+      filter(job => job.status === 'COMPLETED' || job.status === 'FAILED'),
+      take(1),
+      map(job => {
+        if (job.status === 'FAILED' || !job.result) {
+          throw new Error(job.error || 'Code generation failed');
+        }
+        return job.result;
+      })
+    );
   }
 
   streamBackendCode(id: number): EventSource {
@@ -12,7 +12,7 @@ import { TreeModule } from 'primeng/tree';
 import { MessageService } from 'primeng/api';
 import { HttpClient } from '@angular/common/http';
 import { environment } from '../../../environments/environment';
-import { ProjectStructure, TreeNode } from '../../models/project-file.model';
+import { ProjectFile, ProjectStructure, TreeNode } from '../../models/project-file.model';
 import { ProjectStructureService } from '../../core/services/project-structure.service';
 import { AuthService } from '../../core/services/auth.service';
 
@@ -437,6 +437,10 @@ export class GeneratorComponent implements OnDestroy {
   statusHistory: string[] = [];
   generationPhase: 'initializing' | 'entities' | 'repositories' | 'services' | 'controllers' | 'dtos' | 'config' | 'completing' = 'initializing';
   
+  // Files reported by file-start/file-end events while streaming
+  backendFiles: ProjectFile[] = [];
+  frontendFiles: ProjectFile[] = [];
+
   // Project structure for tree display
   backendProjectStructure: ProjectStructure | null = null;
   frontendProjectStructure: ProjectStructure | null = null;
@@ -493,6 +497,7 @@ export class GeneratorComponent implements OnDestroy {
 
     this.streamingBackend = true;
     this.backendCode = '';
+    this.backendFiles = [];
     this.currentStatus = 'Connecting to LLM...';
     this.generationPhase = 'initializing';
     this.statusHistory = [];
@@ -508,6 +513,7 @@ export class GeneratorComponent implements OnDestroy {
 
     this.streamingFrontend = true;
     this.frontendCode = '';
+    this.frontendFiles = [];
     this.currentStatus = 'Connecting to LLM...';
     this.generationPhase = 'initializing';
     this.statusHistory = [];
@@ -561,12 +567,18 @@ export class GeneratorComponent implements OnDestroy {
         
         // Analyze what's being generated and update status
         this.updateGenerationStatus(this.backendCode, 'backend');
-        
-        this.updateBackendProjectStructure();
         this.scrollToBottom('backend-code');
       }
     });
 
+    // Sent instead of the missed events when a resumed stream fell too far behind
+    this.eventSource.addEventListener('code-snapshot', (event: MessageEvent) => {
+      this.backendCode = event.data || '';
+      this.updateGenerationStatus(this.backendCode, 'backend');
+    });
+
+    this.listenForFileEvents(this.eventSource, this.backendFiles, () => this.backendCode, () => this.updateBackendProjectStructure());
+
     let completed = false;
     
     this.eventSource.addEventListener('complete', () => {
@@ -694,12 +706,18 @@ export class GeneratorComponent implements OnDestroy {
         
         // Analyze what's being generated and update status
         this.updateGenerationStatus(this.frontendCode, 'frontend');
-        
-        this.updateFrontendProjectStructure();
         this.scrollToBottom('frontend-code');
       }
     });
 
+    // Sent instead of the missed events when a resumed stream fell too far behind
+    frontendEventSource.addEventListener('code-snapshot', (event: MessageEvent) => {
+      this.frontendCode = event.data || '';
+      this.updateGenerationStatus(this.frontendCode, 'frontend');
+    });
+
+    this.listenForFileEvents(frontendEventSource, this.frontendFiles, () => this.frontendCode, () => this.updateFrontendProjectStructure());
+
     let frontendCompleted = false;
     
     frontendEventSource.addEventListener('complete', () => {
@@ -842,7 +860,10 @@ export class GeneratorComponent implements OnDestroy {
 
   private updateBackendProjectStructure(): void {
     if (this.backendCode) {
-      const structure = this.projectStructureService.parseFilesFromCode(this.backendCode);
+      // Prefer the files streamed by the server; parse the raw text only if it reported none
+      const structure = this.backendFiles.length > 0
+        ? this.projectStructureService.buildStructure(this.backendFiles)
+        : this.projectStructureService.parseFilesFromCode(this.backendCode);
       if (structure && structure.root) {
         this.backendProjectStructure = structure;
         this.backendTreeNodes = [structure.root];
@@ -871,7 +892,10 @@ export class GeneratorComponent implements OnDestroy {
 
   private updateFrontendProjectStructure(): void {
     if (this.frontendCode) {
-      const structure = this.projectStructureService.parseFilesFromCode(this.frontendCode);
+      // Prefer the files streamed by the server; parse the raw text only if it reported none
+      const structure = this.frontendFiles.length > 0
+        ? this.projectStructureService.buildStructure(this.frontendFiles)
+        : this.projectStructureService.parseFilesFromCode(this.frontendCode);
       if (structure && structure.root) {
         this.frontendProjectStructure = structure;
         this.frontendTreeNodes = [structure.root];
@@ -905,6 +929,76 @@ export class GeneratorComponent implements OnDestroy {
     }
   }
 
+  /**
+   * Builds the file list live from the server's file-start / file-chunk / file-end events. Their offsets
+   * locate each file's content in the generated code, which arrives (once) as code-chunk events.
+   */
+  private listenForFileEvents(source: EventSource, files: ProjectFile[], code: () => string,
+                              onStructureChange: () => void): void {
+    // Files whose content still grows with the code: where it starts and, once the file is closed, ends
+    const growing = new Map<ProjectFile, { start: number; end?: number }>();
+    const refresh = () => {
+      const text = code();
+      growing.forEach((range, file) => {
+        file.content = text.substring(range.start, range.end ?? text.length);
+        if (range.end !== undefined && text.length >= range.end) {
+          file.content = file.content.trim();
+          growing.delete(file);
+        }
+      });
+    };
+
+    // Registered after the component's own code-chunk listener, so code() already includes the chunk
+    source.addEventListener('code-chunk', () => refresh());
+
+    // The file events it replaces are lost, so rebuild the file list from the code snapshot
+    source.addEventListener('code-snapshot', (event: MessageEvent) => {
+      const structure = this.projectStructureService.parseFilesFromCode(event.data || '');
+      files.splice(0, files.length, ...(structure?.files || []));
+      growing.clear();
+      onStructureChange();
+    });
+
+    source.addEventListener('file-start', (event: MessageEvent) => {
+      const data = JSON.parse(event.data);
+      const path = data.path as string;
+      const file: ProjectFile = {
+        path,
+        name: path.split('/').pop() || path,
+        content: '',
+        language: data.language || 'text',
+        type: 'file'
+      };
+      files.push(file);
+      growing.set(file, { start: data.offset });
+      refresh();
+      onStructureChange();
+    });
+
+    // The range it names has already arrived as code; it only marks that the file grew
+    source.addEventListener('file-chunk', () => refresh());
+
+    source.addEventListener('file-end', (event: MessageEvent) => {
+      const data = JSON.parse(event.data);
+      const file = this.findStreamedFile(files, data.path);
+      if (file) {
+        // Also completes a file that was only partly rebuilt from a code snapshot
+        growing.set(file, { start: data.offset, end: data.end });
+        refresh();
+      }
+      onStructureChange();
+    });
+  }
+
+  private findStreamedFile(files: ProjectFile[], path: string): ProjectFile | undefined {
+    for (let i = files.length - 1; i >= 0; i--) {
+      if (files[i].path === path) {
+        return files[i];
+      }
+    }
+    return undefined;
+  }
+
   private findFirstFile(node: any): any {
     if (node.type === 'file') {
       return node;
@@ -323,7 +323,17 @@ export class ProjectDetailComponent implements OnInit {
       }
     };
     
+    // Sent instead of the missed events when a resumed stream fell too far behind
+    eventSource.addEventListener('code-snapshot', (event: MessageEvent) => {
+      this.streamingCode = event.data || '';
+      this.scrollToBottom();
+    });
+    
+    // While CONNECTING, EventSource reconnects by itself and the server resumes from Last-Event-ID
     eventSource.onerror = () => {
+      if (eventSource.readyState !== EventSource.CLOSED || !this.streamingBackend) {
+        return;
+      }
       eventSource.close();
       this.streamingBackend = false;
       this.streamingCode = '';
@@ -376,7 +386,17 @@ export class ProjectDetailComponent implements OnInit {
       }
     };
     
+    // Sent instead of the missed events when a resumed stream fell too far behind
+    eventSource.addEventListener('code-snapshot', (event: MessageEvent) => {
+      this.streamingCode = event.data || '';
+      this.scrollToBottom();
+    });
+    
+    // While CONNECTING, EventSource reconnects by itself and the server resumes from Last-Event-ID
     eventSource.onerror = () => {
+      if (eventSource.readyState !== EventSource.CLOSED || !this.streamingFrontend) {
+        return;
+      }
       eventSource.close();
       this.streamingFrontend = false;
       this.streamingCode = '';
@@ -22,3 +22,17 @@ export interface ProjectRequest {
 }
 
 
+
+export type GenerationJobStatus = 'QUEUED' | 'RUNNING' | 'COMPLETED' | 'FAILED';
+
+export interface GenerationJob {
+  jobId: string;
+  projectId: number;
+  target: 'all' | 'backend' | 'frontend';
+  status: GenerationJobStatus;
+  queue?: { position: number; queueSize: number; estimatedStartSeconds: number };
+  error?: string;
+  result?: Project;
+  createdAt: string;
+  updatedAt: string;
+}